@@ -0,0 +1,185 @@
+package com.energizedwork.justConf
+
+import com.energizedwork.justConf.testSupport.ConfigurationTestApplication
+import com.energizedwork.justConf.testSupport.StartupPerformanceConfig
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.SerializationFeature
+import com.fasterxml.jackson.databind.node.ObjectNode
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory
+import io.dropwizard.Application
+import io.dropwizard.configuration.ConfigurationSourceProvider
+import io.dropwizard.configuration.EnvironmentVariableSubstitutor
+import io.dropwizard.configuration.FileConfigurationSourceProvider
+import io.dropwizard.configuration.SubstitutingSourceProvider
+import spock.lang.Requires
+import spock.lang.Specification
+
+/**
+ * times bootstrapping a dropwizard application with a large inheritance and import graph under the dropwizard version
+ * of the module running it
+ *
+ * <p>
+ * Run with {@code ./gradlew :dwtests:114:test :dwtests:117:test ... -Djfconfig.benchmark=true}, the modules are timed
+ * one at a time and each records only its own {@code <module>.json} in {@code dwtests/build/startup-performance}, the
+ * {@code startupPerformanceSummary} task collects them into {@code startup-performance.tsv}.
+ * A version fails when its median exceeds, by more than {@code jfconfig.benchmark.threshold} (default 0.25), the
+ * median of the reference module ({@code jfconfig.benchmark.reference}, default 114) recorded in the same gradle run
+ * or its own median in a directory of earlier results ({@code jfconfig.benchmark.baseline}).
+ * </p>
+ */
+@Requires({ System.getProperty('jfconfig.benchmark') })
+class StartupPerformanceSpec extends Specification {
+
+    static final int LEVELS = 8
+    static final int IMPORTS_PER_LEVEL = 10
+    static final int ROUTES_PER_IMPORT = 100
+    static final int OVERRIDES_PER_LEVEL = 10
+
+    static final ObjectMapper yaml = new ObjectMapper(new YAMLFactory())
+    static final ObjectMapper json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+
+    File dir
+
+    void setup() {
+        dir = File.createTempDir()
+    }
+
+    void cleanup() {
+        dir.deleteDir()
+    }
+
+    def "bootstrap with a large inheritance and import graph does not regress"() {
+        given:
+        File config = generateGraph()
+        ConfigurationSourceProvider sourceProvider = new SubstitutingSourceProvider(new FileConfigurationSourceProvider(), new EnvironmentVariableSubstitutor(false))
+        int warmups = Integer.getInteger('jfconfig.benchmark.warmups', 5)
+        int runs = Integer.getInteger('jfconfig.benchmark.runs', 15)
+        double threshold = Double.parseDouble(System.getProperty('jfconfig.benchmark.threshold', '0.25'))
+
+        when:
+        StartupPerformanceConfig loaded = bootstrap(sourceProvider, config)
+        warmups.times { bootstrap(sourceProvider, config) }
+        List<Long> nanos = (1..runs).collect {
+            long start = System.nanoTime()
+            bootstrap(sourceProvider, config)
+            System.nanoTime() - start
+        }.sort()
+        Map result = record(nanos)
+        List<String> regressions = findRegressions(result, threshold)
+        println "Dropwizard ${result.dropwizardVersion}: median ${result.medianMillis} ms, p90 ${result.p90Millis} ms over ${runs} bootstraps"
+
+        then:
+        loaded.name == 'startup performance'
+        loaded.routes.size() == LEVELS * IMPORTS_PER_LEVEL * ROUTES_PER_IMPORT
+        loaded.routes["route-${LEVELS - 2}-0-0".toString()].timeoutMillis == 1000 + LEVELS - 1
+        regressions.empty
+    }
+
+    StartupPerformanceConfig bootstrap(ConfigurationSourceProvider sourceProvider, File config) {
+        def app = new ConfigurationTestApplication(StartupPerformanceConfig, 'import', null, sourceProvider)
+        app.run('configure', config.path)
+        app.configuration
+    }
+
+    /**
+     * a chain of LEVELS configs, each importing IMPORTS_PER_LEVEL route files and overriding some routes of the level
+     * it inherits
+     */
+    File generateGraph() {
+        File parent = null
+        LEVELS.times { level ->
+            ObjectNode levelConfig = yaml.createObjectNode()
+            if (parent) {
+                levelConfig.put('inherits', parent.path)
+            }
+            def imports = levelConfig.putArray('import')
+            IMPORTS_PER_LEVEL.times { i ->
+                File routes = new File(dir, "routes-${level}-${i}.yml")
+                yaml.writeValue(routes, generateRoutes(level, i))
+                imports.add(routes.path)
+            }
+            if (level > 0) {
+                ObjectNode overrides = levelConfig.putObject('routes')
+                OVERRIDES_PER_LEVEL.times { n ->
+                    overrides.putObject("route-${level - 1}-0-${n}".toString()).put('timeoutMillis', 1000 + level)
+                }
+            }
+            levelConfig.put('name', level == LEVELS - 1 ? '${JFCONFIG_STARTUP_NAME:-startup performance}' : "level ${level}".toString())
+            parent = new File(dir, "level-${level}.yml")
+            yaml.writeValue(parent, levelConfig)
+        }
+        parent
+    }
+
+    static ObjectNode generateRoutes(int level, int importIndex) {
+        ObjectNode root = yaml.createObjectNode()
+        ObjectNode routes = root.putObject('routes')
+        ROUTES_PER_IMPORT.times { n ->
+            ObjectNode route = routes.putObject("route-${level}-${importIndex}-${n}".toString())
+            route.put('path', "/api/v${level}/resource${importIndex}/${n}".toString())
+            route.put('upstream', "http://backend-${n % 20}.internal:8080".toString())
+            route.put('timeoutMillis', 5000 + n % 7)
+            route.put('weight', (n % 100) / 100d)
+            route.put('enabled', n % 3 != 0)
+            route.putArray('methods').add('GET').add('POST')
+        }
+        root
+    }
+
+    static Map record(List<Long> sortedNanos) {
+        String dropwizardVersion = Application.package.implementationVersion ?: 'unknown'
+        Map result = [
+                module           : System.getProperty('jfconfig.benchmark.module', dropwizardVersion),
+                dropwizardVersion: dropwizardVersion,
+                jacksonVersion   : ObjectMapper.package.implementationVersion ?: 'unknown',
+                javaVersion      : System.getProperty('java.version'),
+                runId            : System.getProperty('jfconfig.benchmark.runId'),
+                files            : LEVELS * (IMPORTS_PER_LEVEL + 1),
+                routes           : LEVELS * IMPORTS_PER_LEVEL * ROUTES_PER_IMPORT,
+                runs             : sortedNanos.size(),
+                minMillis        : millis(sortedNanos[0]),
+                medianMillis     : millis(sortedNanos[sortedNanos.size().intdiv(2)]),
+                p90Millis        : millis(sortedNanos[Math.min(sortedNanos.size() - 1, (int) Math.ceil(sortedNanos.size() * 0.9d) - 1)]),
+                recorded         : new Date().format("yyyy-MM-dd'T'HH:mm:ssZ")
+        ]
+        File results = resultsDir()
+        results.mkdirs()
+        json.writeValue(new File(results, "${result.module}.json"), result)
+        result
+    }
+
+    static List<String> findRegressions(Map result, double threshold) {
+        List<String> regressions = []
+        String reference = System.getProperty('jfconfig.benchmark.reference', '114')
+        Map referenceResult = read(new File(resultsDir(), "${reference}.json"))
+        if (reference != result.module && referenceResult && result.runId && referenceResult.runId == result.runId) {
+            checkRegression(regressions, result, referenceResult, "reference module ${reference}", threshold)
+        }
+        String baselineDir = System.getProperty('jfconfig.benchmark.baseline')
+        Map baseline = baselineDir ? read(new File(baselineDir, "${result.module}.json")) : null
+        if (baseline) {
+            checkRegression(regressions, result, baseline, "baseline recorded ${baseline.recorded}", threshold)
+        }
+        regressions
+    }
+
+    static void checkRegression(List<String> regressions, Map result, Map previous, String description, double threshold) {
+        double limit = (previous.medianMillis as double) * (1 + threshold)
+        if ((result.medianMillis as double) > limit) {
+            regressions << "Dropwizard ${result.dropwizardVersion} median ${result.medianMillis} ms is more than ${(threshold * 100) as int}% slower than ${description} (${previous.medianMillis} ms)".toString()
+        }
+    }
+
+    static Map read(File file) {
+        file.isFile() ? json.readValue(file, Map) : null
+    }
+
+    static File resultsDir() {
+        new File(System.getProperty('jfconfig.benchmark.results', 'build/startup-performance'))
+    }
+
+    static double millis(long nanos) {
+        Math.round(nanos / 10000d) / 100d
+    }
+
+}
@@ -2,6 +2,7 @@ package com.energizedwork.justConf.testSupport
 
 import io.dropwizard.Application
 import io.dropwizard.cli.ConfiguredCommand
+import io.dropwizard.configuration.ConfigurationSourceProvider
 import io.dropwizard.configuration.EnvironmentVariableSubstitutor
 import io.dropwizard.configuration.ResourceConfigurationSourceProvider
 import io.dropwizard.configuration.SubstitutingSourceProvider
@@ -17,10 +18,12 @@ class ConfigurationTestApplication<T> extends Application<T> {
     def configClass
     def importKey
     def externalConfig
-    ConfigurationTestApplication(Class<? extends T> configClass, String importKey = null, File externalConfig = null) {
+    def sourceProvider
+    ConfigurationTestApplication(Class<? extends T> configClass, String importKey = null, File externalConfig = null, ConfigurationSourceProvider sourceProvider = null) {
         this.configClass = configClass
         this.importKey = importKey
         this.externalConfig = externalConfig
+        this.sourceProvider = sourceProvider
     }
     @Override
     void initialize(Bootstrap<T> bootstrap) {
@@ -29,7 +32,7 @@ class ConfigurationTestApplication<T> extends Application<T> {
         bootstrap.setConfigurationFactoryFactory(new DWConfigFactoryFactory<T>("inherits", importKey, DEFAULT_PROPERTY_OVERRIDE_PREFIX, externalConfig))
         bootstrap.addCommand(configCommand)
         bootstrap.setConfigurationSourceProvider(
-                new SubstitutingSourceProvider(
+                sourceProvider ?: new SubstitutingSourceProvider(
                         new ResourceConfigurationSourceProvider(),
                         new EnvironmentVariableSubstitutor(false)
                 )
@@ -0,0 +1,39 @@
+package com.energizedwork.justConf.testSupport
+
+import io.dropwizard.Configuration
+import org.hibernate.validator.constraints.NotBlank
+
+import javax.validation.Valid
+import javax.validation.constraints.Min
+import javax.validation.constraints.NotNull
+
+class StartupPerformanceConfig extends Configuration {
+
+    @NotBlank
+    String name
+
+    @Valid
+    @NotNull
+    Map<String, Route> routes
+
+    static class Route {
+
+        @NotBlank
+        String path
+
+        @NotBlank
+        String upstream
+
+        @Min(1L)
+        int timeoutMillis
+
+        double weight
+
+        boolean enabled
+
+        @NotNull
+        List<String> methods
+
+    }
+
+}
@@ -0,0 +1,515 @@
+package com.energizedwork.justConf.daemon;
+
+import com.energizedwork.justConf.DWConfigFactory;
+import com.energizedwork.justConf.DWConfigFactoryFactory;
+import com.energizedwork.justConf.JFConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.dropwizard.configuration.ConfigurationException;
+import io.dropwizard.configuration.ConfigurationSourceProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_IMPORT_KEY;
+import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_PARENT_KEY;
+import static com.energizedwork.justConf.DiscoverableSubtypes.newObjectMapper;
+import static com.energizedwork.justConf.daemon.DaemonProtocol.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * a host local daemon that resolves configurations once and serves the resolved trees to every JVM on the host
+ *
+ * <p>
+ * Each configuration is resolved (inheritance, imports and array merges) on first request and cached as a versioned
+ * Smile snapshot. The files read to build a snapshot are polled for changes and the snapshot rebuilt, with a new version,
+ * when any of them change. A snapshot that fails to rebuild is kept until its sources change again.
+ * </p>
+ *
+ * <p>
+ * Relative locations, including relative parents and imports, are resolved against the working directory of the client
+ * that requested the configuration, and snapshots are kept per working directory and location, so clients started in
+ * different directories each get their own configuration.
+ * </p>
+ *
+ * <p>
+ * Clients connect with a {@link DaemonConfigurationSourceProvider} through the address file, see {@link DaemonProtocol}.
+ * System property overrides, the external configuration file and secrets are applied by each client.
+ * </p>
+ */
+public class ConfigDaemon implements Closeable {
+
+    /**
+     * {@value}
+     */
+    public static final long DEFAULT_POLL_MILLIS = 2000;
+
+    /**
+     * {@value}
+     */
+    public static final int MAX_CONNECTIONS = 16;
+
+    /**
+     * {@value}
+     */
+    public static final int REQUEST_TIMEOUT_MILLIS = 2000;
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigDaemon.class);
+    private static final ObjectMapper SMILE = new ObjectMapper(new SmileFactory());
+
+    private final ConfigurationSourceProvider sourceProvider;
+    private final DWConfigFactoryFactory<Object> factoryFactory;
+    private final File addressFile;
+    private final long pollMillis;
+    private final String token = newToken();
+    private final byte[] tokenBytes = token.getBytes(UTF_8);
+    // versions start from the clock so they keep increasing when the daemon is restarted
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final ConcurrentMap<SnapshotKey, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Object buildLock = new Object();
+    private ServerSocket serverSocket;
+    private ExecutorService connections;
+    private ScheduledExecutorService watcher;
+
+    /**
+     * @param sourceProvider the source provider used to read configurations
+     * @param parentKey the key in the yaml document to identify a parent configuration
+     * @param importKey the key in the yaml document to identify configurations to import. When null, imports are disabled.
+     * @param addressFile the file the daemon's address is written to
+     */
+    public ConfigDaemon(ConfigurationSourceProvider sourceProvider, String parentKey, String importKey, File addressFile) {
+        this(sourceProvider, parentKey, importKey, addressFile, DEFAULT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param sourceProvider the source provider used to read configurations
+     * @param parentKey the key in the yaml document to identify a parent configuration
+     * @param importKey the key in the yaml document to identify configurations to import. When null, imports are disabled.
+     * @param addressFile the file the daemon's address is written to
+     * @param pollInterval how often the sources of each snapshot are checked for changes
+     * @param pollUnit the unit of the poll interval
+     */
+    public ConfigDaemon(ConfigurationSourceProvider sourceProvider, String parentKey, String importKey, File addressFile, long pollInterval, TimeUnit pollUnit) {
+        this.sourceProvider = sourceProvider;
+        this.factoryFactory = new DWConfigFactoryFactory<>(parentKey, importKey, "N/A");
+        this.addressFile = addressFile;
+        this.pollMillis = pollUnit.toMillis(pollInterval);
+    }
+
+    /**
+     * listen for clients and publish the address file
+     *
+     * @throws IOException when the daemon cannot listen or write the address file
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("Config daemon already started");
+        }
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        // bounded so clients that connect and never send a request cannot exhaust the daemon's threads
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_CONNECTIONS, MAX_CONNECTIONS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_CONNECTIONS), daemonThreads("jfconfig-daemon-connection-"));
+        pool.allowCoreThreadTimeOut(true);
+        connections = pool;
+        watcher = Executors.newSingleThreadScheduledExecutor(daemonThreads("jfconfig-daemon-watcher-"));
+        watcher.scheduleWithFixedDelay(this::refresh, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        Thread acceptor = daemonThreads("jfconfig-daemon-acceptor-").newThread(this::accept);
+        acceptor.start();
+        writeAddress(addressFile, new Address(serverSocket.getLocalPort(), token));
+        log.info("Config daemon listening on port {}, address file '{}'", serverSocket.getLocalPort(), addressFile);
+    }
+
+    /**
+     * stop serving and remove the address file
+     */
+    @Override
+    public synchronized void close() {
+        if (serverSocket == null) {
+            return;
+        }
+        addressFile.delete();
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            log.debug("Closing config daemon socket", e);
+        }
+        watcher.shutdownNow();
+        connections.shutdownNow();
+        serverSocket = null;
+    }
+
+    /**
+     * @param location the location of a configuration (which will be understood by the source provider)
+     * @return the version of the current snapshot of the configuration requested by clients in the daemon's working
+     * directory, or 0 when it has not been requested
+     */
+    public long getVersion(String location) {
+        return getVersion(new File(""), location);
+    }
+
+    /**
+     * @param workingDirectory the working directory of the clients that requested the configuration
+     * @param location the location of a configuration (which will be understood by the source provider)
+     * @return the version of the current snapshot of the configuration, or 0 when it has not been requested
+     */
+    public long getVersion(File workingDirectory, String location) {
+        Snapshot snapshot = snapshots.get(new SnapshotKey(workingDirectory.getAbsoluteFile().toPath(), location));
+        return snapshot != null ? snapshot.version : 0;
+    }
+
+    Snapshot snapshot(SnapshotKey key) throws IOException, ConfigurationException {
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (buildLock) {
+            snapshot = snapshots.get(key);
+            if (snapshot == null) {
+                snapshot = build(key);
+                snapshots.put(key, snapshot);
+            }
+            return snapshot;
+        }
+    }
+
+    private Snapshot build(SnapshotKey key) throws IOException, ConfigurationException {
+        RecordingSourceProvider recording = new RecordingSourceProvider(sourceProvider, key.workingDirectory);
+        DWConfigFactory<Object> factory = (DWConfigFactory<Object>) factoryFactory.create(Object.class, null, newObjectMapper(), "N/A");
+        ObjectNode tree = factory.buildTree(recording, key.location);
+        Snapshot snapshot = new Snapshot(versions.incrementAndGet(), SMILE.writeValueAsBytes(tree), recording.stamps());
+        log.debug("Built snapshot {} of {} from {} sources", snapshot.version, key, snapshot.sources.size());
+        return snapshot;
+    }
+
+    private void refresh() {
+        for (Map.Entry<SnapshotKey, Snapshot> entry : snapshots.entrySet()) {
+            Snapshot snapshot = entry.getValue();
+            Map<String, SourceStamp> current = new HashMap<>(snapshot.sources.size() * 2);
+            boolean changed = false;
+            boolean restamp = false;
+            for (Map.Entry<String, SourceStamp> source : snapshot.sources.entrySet()) {
+                SourceStamp stamp = SourceStamp.of(source.getKey());
+                changed |= source.getValue().changed(stamp, source.getKey());
+                restamp |= source.getValue().digest != null;
+                current.put(source.getKey(), stamp);
+            }
+            if (!changed) {
+                if (restamp) {
+                    // the sources are unchanged, restamp so they are only hashed while their modification time is recent
+                    snapshots.replace(entry.getKey(), snapshot, new Snapshot(snapshot.version, snapshot.content, current));
+                }
+                continue;
+            }
+            synchronized (buildLock) {
+                try {
+                    snapshots.put(entry.getKey(), build(entry.getKey()));
+                    log.info("Rebuilt {} after its sources changed", entry.getKey());
+                } catch (Exception e) {
+                    log.warn("Failed to rebuild {}, serving snapshot {} until its sources change", entry.getKey(), snapshot.version, e);
+                    snapshots.put(entry.getKey(), new Snapshot(snapshot.version, snapshot.content, current));
+                }
+            }
+        }
+    }
+
+    private void accept() {
+        ServerSocket server = serverSocket;
+        while (!server.isClosed()) {
+            Socket socket = null;
+            try {
+                socket = server.accept();
+                Socket accepted = socket;
+                connections.execute(() -> serve(accepted));
+            } catch (SocketException e) {
+                log.debug("Config daemon socket closed");
+            } catch (RejectedExecutionException e) {
+                log.warn("Config daemon is serving {} connections, rejecting connection", MAX_CONNECTIONS);
+                closeQuietly(socket);
+            } catch (IOException e) {
+                log.warn("Failed to accept config daemon connection", e);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            s.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+            if (in.readInt() != MAGIC || in.readInt() != PROTOCOL_VERSION || !MessageDigest.isEqual(tokenBytes, in.readUTF().getBytes(UTF_8))) {
+                out.writeByte(ERROR);
+                out.writeUTF("Invalid config daemon request");
+                return;
+            }
+            Path workingDirectory = absolutePath(in.readUTF());
+            String location = in.readUTF();
+            long knownVersion = in.readLong();
+            if (workingDirectory == null) {
+                out.writeByte(ERROR);
+                out.writeUTF("Invalid config daemon request, the working directory must be absolute");
+                return;
+            }
+            SnapshotKey key = new SnapshotKey(workingDirectory, location);
+            Snapshot snapshot;
+            try {
+                snapshot = snapshot(key);
+            } catch (Exception e) {
+                log.debug("Failed to resolve {}", key, e);
+                out.writeByte(ERROR);
+                out.writeUTF(String.valueOf(e.getMessage()));
+                return;
+            }
+            if (snapshot.version == knownVersion) {
+                out.writeByte(NOT_MODIFIED);
+                out.writeLong(snapshot.version);
+            } else {
+                out.writeByte(OK);
+                out.writeLong(snapshot.version);
+                out.writeInt(snapshot.content.length);
+                out.write(snapshot.content);
+            }
+        } catch (IOException e) {
+            log.debug("Config daemon connection failed", e);
+        }
+    }
+
+    private static Path absolutePath(String directory) {
+        try {
+            Path path = Paths.get(directory);
+            return path.isAbsolute() ? path : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Closing config daemon connection", e);
+            }
+        }
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[24];
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * a configuration location and the working directory of the clients it is relative to
+     */
+    static final class SnapshotKey {
+        final Path workingDirectory;
+        final String location;
+
+        SnapshotKey(Path workingDirectory, String location) {
+            this.workingDirectory = workingDirectory;
+            this.location = location;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof SnapshotKey)) {
+                return false;
+            }
+            SnapshotKey other = (SnapshotKey) o;
+            return workingDirectory.equals(other.workingDirectory) && location.equals(other.location);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * workingDirectory.hashCode() + location.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "'" + location + "' in '" + workingDirectory + "'";
+        }
+    }
+
+    static class Snapshot {
+        final long version;
+        final byte[] content;
+        final Map<String, SourceStamp> sources;
+
+        Snapshot(long version, byte[] content, Map<String, SourceStamp> sources) {
+            this.version = version;
+            this.content = content;
+            this.sources = sources;
+        }
+    }
+
+    /**
+     * the modification time and size of a source, sources that are not files (or do not exist) are never stamped as changed
+     * until they appear as files
+     *
+     * <p>
+     * A source is stamped before it is read, so a change made while it is read is seen by the next poll. The modification
+     * time of a file may only have a resolution of a second, so when it is that recent the content is hashed too and an
+     * edit that keeps the size and modification time is still seen.
+     * </p>
+     */
+    private static class SourceStamp {
+        static final long RECENT_MILLIS = 2000;
+
+        final long lastModifiedNanos;
+        final long length;
+        final byte[] digest;
+
+        private SourceStamp(long lastModifiedNanos, long length, byte[] digest) {
+            this.lastModifiedNanos = lastModifiedNanos;
+            this.length = length;
+            this.digest = digest;
+        }
+
+        static SourceStamp of(String location) {
+            Path path = Paths.get(location);
+            try {
+                if (!Files.isRegularFile(path)) {
+                    return new SourceStamp(-1, -1, null);
+                }
+                long lastModifiedNanos = Files.getLastModifiedTime(path).to(TimeUnit.NANOSECONDS);
+                long length = Files.size(path);
+                boolean recent = System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(lastModifiedNanos) < RECENT_MILLIS;
+                return new SourceStamp(lastModifiedNanos, length, recent ? digest(path) : null);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Failed to stamp '{}'", location, e);
+                return new SourceStamp(-1, -1, null);
+            }
+        }
+
+        /**
+         * @param current the current stamp of the source
+         * @param location the location of the source, hashed when this stamp was recent and the current stamp is not
+         * @return true when the source has changed since this stamp
+         */
+        boolean changed(SourceStamp current, String location) {
+            if (lastModifiedNanos != current.lastModifiedNanos || length != current.length) {
+                return true;
+            }
+            if (digest == null) {
+                return false;
+            }
+            try {
+                return !MessageDigest.isEqual(digest, current.digest != null ? current.digest : digest(Paths.get(location)));
+            } catch (IOException e) {
+                log.debug("Failed to hash '{}'", location, e);
+                return true;
+            }
+        }
+
+        private static byte[] digest(Path path) throws IOException {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            try (InputStream in = Files.newInputStream(path)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return digest.digest();
+        }
+    }
+
+    /**
+     * resolves relative locations against the working directory of the client, then records and stamps every location
+     * opened while building a snapshot, including optional imports that could not be opened
+     */
+    private static class RecordingSourceProvider implements ConfigurationSourceProvider {
+        private final ConfigurationSourceProvider delegate;
+        private final Path workingDirectory;
+        private final Map<String, SourceStamp> stamps = new LinkedHashMap<>();
+
+        RecordingSourceProvider(ConfigurationSourceProvider delegate, Path workingDirectory) {
+            this.delegate = delegate;
+            this.workingDirectory = workingDirectory;
+        }
+
+        @Override
+        public InputStream open(String path) throws IOException {
+            String location = resolve(path);
+            stamps.putIfAbsent(location, SourceStamp.of(location));
+            return delegate.open(location);
+        }
+
+        private String resolve(String path) {
+            try {
+                Path location = Paths.get(path);
+                return location.isAbsolute() ? path : workingDirectory.resolve(location).toString();
+            } catch (InvalidPathException e) {
+                return path;
+            }
+        }
+
+        Map<String, SourceStamp> stamps() {
+            return stamps;
+        }
+    }
+
+    /**
+     * run a daemon serving configurations from the filesystem, with environment variable substitution
+     *
+     * <p>
+     * {@code java com.energizedwork.justConf.daemon.ConfigDaemon <addressFile> [parentKey] [importKey]}
+     * </p>
+     *
+     * @param args the address file and optionally the parent and import keys
+     * @throws IOException when the daemon cannot start
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ConfigDaemon <addressFile> [parentKey] [importKey]");
+            System.exit(1);
+        }
+        String parentKey = args.length > 1 ? args[1] : DEFAULT_PARENT_KEY;
+        String importKey = args.length > 2 ? args[2] : DEFAULT_IMPORT_KEY;
+        ConfigDaemon daemon = new ConfigDaemon(JFConfig.createEnvVarSubstitutingFileSourceProvider(), parentKey, importKey, new File(args[0]));
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+        daemon.start();
+        Object forever = new Object();
+        synchronized (forever) {
+            while (true) {
+                try {
+                    forever.wait();
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.energizedwork.justConf.daemon;
+
+import com.energizedwork.justConf.ConfigFormat;
+import io.dropwizard.configuration.ConfigurationSourceProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.energizedwork.justConf.daemon.DaemonProtocol.*;
+
+/**
+ * a configurationSourceProvider that reads resolved configurations from a {@link ConfigDaemon}, falling back to
+ * resolving them locally
+ *
+ * <p>
+ * A configuration served by the daemon has its inheritance and imports already resolved so no other locations are
+ * opened. When the daemon is not running, or cannot resolve the configuration, the location is opened with the fallback
+ * provider and resolved locally as usual, and the daemon is not tried again for {@link #RETRY_MILLIS}. The fallback must
+ * read the same configurations as the daemon. Use the same parent and import keys as the daemon.
+ * </p>
+ *
+ * <p>
+ * Only the entry location, the first one the provider opens, is requested from the daemon. The parents and imports
+ * opened by a local build are always read with the fallback, so a daemon that comes back during the build cannot
+ * return resolved snapshots for them. Relative locations are resolved by the daemon against the working directory of
+ * the client.
+ * </p>
+ */
+public class DaemonConfigurationSourceProvider implements ConfigurationSourceProvider {
+
+    /**
+     * {@value}
+     */
+    public static final int DEFAULT_TIMEOUT_MILLIS = 1000;
+
+    /**
+     * {@value}
+     */
+    public static final long RETRY_MILLIS = 5000;
+
+    private static final Logger log = LoggerFactory.getLogger(DaemonConfigurationSourceProvider.class);
+
+    private final File addressFile;
+    private final ConfigurationSourceProvider fallback;
+    private final int timeoutMillis;
+    private final String workingDirectory;
+    private final AtomicReference<String> entryLocation = new AtomicReference<>();
+    private final ConcurrentMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private volatile long retryAfter;
+
+    /**
+     * @param addressFile the address file written by the daemon
+     * @param fallback the source provider used when the daemon cannot serve a configuration
+     */
+    public DaemonConfigurationSourceProvider(File addressFile, ConfigurationSourceProvider fallback) {
+        this(addressFile, fallback, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param addressFile the address file written by the daemon
+     * @param fallback the source provider used when the daemon cannot serve a configuration
+     * @param timeoutMillis the connect and read timeout for requests to the daemon
+     */
+    public DaemonConfigurationSourceProvider(File addressFile, ConfigurationSourceProvider fallback, int timeoutMillis) {
+        this(addressFile, fallback, timeoutMillis, new File(""));
+    }
+
+    /**
+     * @param addressFile the address file written by the daemon
+     * @param fallback the source provider used when the daemon cannot serve a configuration
+     * @param timeoutMillis the connect and read timeout for requests to the daemon
+     * @param workingDirectory the directory relative locations are resolved against, the same one the fallback resolves
+     *                         them against. The working directory of the JVM by default.
+     */
+    public DaemonConfigurationSourceProvider(File addressFile, ConfigurationSourceProvider fallback, int timeoutMillis, File workingDirectory) {
+        this.addressFile = addressFile;
+        this.fallback = fallback;
+        this.timeoutMillis = timeoutMillis;
+        this.workingDirectory = workingDirectory.getAbsolutePath();
+    }
+
+    @Override
+    public InputStream open(String path) throws IOException {
+        entryLocation.compareAndSet(null, path);
+        if (path.equals(entryLocation.get()) && System.currentTimeMillis() >= retryAfter) {
+            try {
+                return ConfigFormat.SMILE.mark(new ByteArrayInputStream(request(path)));
+            } catch (IOException e) {
+                log.debug("Config daemon could not serve '{}', resolving locally", path, e);
+                retryAfter = System.currentTimeMillis() + RETRY_MILLIS;
+            }
+        }
+        return fallback.open(path);
+    }
+
+    /**
+     * @param path the location of a configuration
+     * @return the version of the last snapshot of the configuration served by the daemon, or 0 when none has been
+     */
+    public long getVersion(String path) {
+        Snapshot snapshot = snapshots.get(path);
+        return snapshot != null ? snapshot.version : 0;
+    }
+
+    private byte[] request(String path) throws IOException {
+        if (!addressFile.isFile()) {
+            throw new FileNotFoundException("Config daemon is not running, no address file " + addressFile);
+        }
+        Address address = readAddress(addressFile);
+        Snapshot known = snapshots.get(path);
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), address.port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(MAGIC);
+            out.writeInt(PROTOCOL_VERSION);
+            out.writeUTF(address.token);
+            out.writeUTF(workingDirectory);
+            out.writeUTF(path);
+            out.writeLong(known != null ? known.version : 0);
+            out.flush();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte status = in.readByte();
+            if (status == NOT_MODIFIED && known != null && in.readLong() == known.version) {
+                return known.content;
+            }
+            if (status == OK) {
+                long version = in.readLong();
+                byte[] content = new byte[in.readInt()];
+                in.readFully(content);
+                snapshots.put(path, new Snapshot(version, content));
+                return content;
+            }
+            if (status == ERROR) {
+                throw new IOException("Config daemon failed to resolve '" + path + "': " + in.readUTF());
+            }
+            throw new IOException("Unexpected config daemon response " + status);
+        }
+    }
+
+    private static class Snapshot {
+        final long version;
+        final byte[] content;
+
+        Snapshot(long version, byte[] content) {
+            this.version = version;
+            this.content = content;
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.energizedwork.justConf.daemon;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * the wire format shared by {@link ConfigDaemon} and {@link DaemonConfigurationSourceProvider}
+ *
+ * <p>
+ * Request (big endian): magic {@code JFCD}, protocol version (int), token (UTF), the absolute working directory of the
+ * client (UTF) that relative locations are resolved against, config location (UTF) and the snapshot version the client
+ * already has (long, 0 for none). Response: a status byte followed by, for {@link #OK}, the snapshot
+ * version (long), length (int) and the Smile encoded config tree, for {@link #NOT_MODIFIED} the snapshot version and for
+ * {@link #ERROR} a message (UTF). One request is made per connection.
+ * </p>
+ *
+ * <p>
+ * The daemon listens on the loopback interface and writes its port and a random token to an address file readable only
+ * by its owner, so only processes that can read the file can use the daemon.
+ * </p>
+ */
+final class DaemonProtocol {
+
+    static final int MAGIC = 0x4a464344;
+    static final int PROTOCOL_VERSION = 2;
+
+    static final byte OK = 0;
+    static final byte NOT_MODIFIED = 1;
+    static final byte ERROR = 2;
+
+    static class Address {
+        final int port;
+        final String token;
+
+        Address(int port, String token) {
+            this.port = port;
+            this.token = token;
+        }
+    }
+
+    static void writeAddress(File addressFile, Address address) throws IOException {
+        Path target = addressFile.getAbsoluteFile().toPath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                temp.toFile().setReadable(false, false);
+                temp.toFile().setReadable(true, true);
+            }
+            Files.write(temp, (address.port + "\n" + address.token + "\n").getBytes(UTF_8));
+            Files.move(temp, target, REPLACE_EXISTING, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    static Address readAddress(File addressFile) throws IOException {
+        List<String> lines = Files.readAllLines(addressFile.toPath(), UTF_8);
+        if (lines.size() < 2) {
+            throw new IOException("Invalid config daemon address file " + addressFile);
+        }
+        try {
+            return new Address(Integer.parseInt(lines.get(0).trim()), lines.get(1).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid config daemon address file " + addressFile, e);
+        }
+    }
+
+    private DaemonProtocol() {}
+
+}
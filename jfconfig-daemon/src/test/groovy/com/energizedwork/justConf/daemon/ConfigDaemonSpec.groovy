@@ -0,0 +1,206 @@
+package com.energizedwork.justConf.daemon
+
+import com.energizedwork.justConf.JFConfig
+import com.fasterxml.jackson.databind.node.ObjectNode
+import io.dropwizard.configuration.ConfigurationSourceProvider
+import io.dropwizard.configuration.FileConfigurationSourceProvider
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.TimeUnit
+
+import static com.energizedwork.justConf.testSupport.ConfigTrees.buildTree
+
+class ConfigDaemonSpec extends Specification {
+
+    File dir
+    File addressFile
+    List<String> fallbackOpened = []
+    ConfigurationSourceProvider fallback = { String path ->
+        fallbackOpened << path
+        new FileConfigurationSourceProvider().open(path)
+    } as ConfigurationSourceProvider
+    ConfigDaemon daemon
+
+    void setup() {
+        dir = File.createTempDir()
+        addressFile = new File(dir, 'jfconfig.address')
+        new File(dir, 'parent.yml').text = 'property1: parent\nproperty2: parent\n'
+        new File(dir, 'imported.json').text = '{"property3": "imported"}'
+        new File(dir, 'config.yml').text = "inherits: ${dir}/parent.yml\nimport: ${dir}/imported.json\nproperty2: config\n"
+        daemon = new ConfigDaemon(new FileConfigurationSourceProvider(), 'inherits', 'import', addressFile, 20, TimeUnit.MILLISECONDS)
+    }
+
+    void cleanup() {
+        daemon.close()
+        dir.deleteDir()
+    }
+
+    def "serves resolved configs without reading the sources locally"() {
+        given:
+        daemon.start()
+        DaemonConfigurationSourceProvider client = new DaemonConfigurationSourceProvider(addressFile, fallback)
+
+        when:
+        ObjectNode config = buildTree(JFConfig.envVarSubstitution(client), "${dir}/config.yml")
+
+        then:
+        config.toString() == '{"property1":"parent","property2":"config","property3":"imported"}'
+        fallbackOpened.empty
+        client.getVersion("${dir}/config.yml") == daemon.getVersion("${dir}/config.yml")
+    }
+
+    def "rebuilds the snapshot when a source changes"() {
+        given:
+        daemon.start()
+        DaemonConfigurationSourceProvider client = new DaemonConfigurationSourceProvider(addressFile, fallback)
+        String location = "${dir}/config.yml"
+        buildTree(client, location)
+        long version = daemon.getVersion(location)
+
+        when:
+        File changed = new File(dir, 'parent.yml.new')
+        changed.text = 'property1: changed\n'
+        Files.move(changed.toPath(), new File(dir, 'parent.yml').toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        long deadline = System.currentTimeMillis() + 5000
+        while (daemon.getVersion(location) <= version && System.currentTimeMillis() < deadline) {
+            sleep 20
+        }
+        ObjectNode config = buildTree(client, location)
+
+        then:
+        daemon.getVersion(location) > version
+        config.get('property1').asText() == 'changed'
+        client.getVersion(location) > version
+        fallbackOpened.empty
+    }
+
+    def "rebuilds the snapshot when a source is edited without changing its size or modification time"() {
+        given:
+        daemon.start()
+        DaemonConfigurationSourceProvider client = new DaemonConfigurationSourceProvider(addressFile, fallback)
+        String location = "${dir}/config.yml"
+        File parent = new File(dir, 'parent.yml')
+        FileTime modified = FileTime.fromMillis(System.currentTimeMillis())
+        Files.setLastModifiedTime(parent.toPath(), modified)
+        buildTree(client, location)
+        long version = daemon.getVersion(location)
+
+        when:
+        parent.text = 'property1: PARENT\nproperty2: parent\n'
+        Files.setLastModifiedTime(parent.toPath(), modified)
+        long deadline = System.currentTimeMillis() + 5000
+        while (daemon.getVersion(location) <= version && System.currentTimeMillis() < deadline) {
+            sleep 20
+        }
+        ObjectNode config = buildTree(client, location)
+
+        then:
+        daemon.getVersion(location) > version
+        config.get('property1').asText() == 'PARENT'
+    }
+
+    def "closes connections that do not send a request"() {
+        given:
+        daemon.start()
+        DaemonProtocol.Address address = DaemonProtocol.readAddress(addressFile)
+        Socket idle = new Socket(InetAddress.loopbackAddress, address.port)
+        idle.soTimeout = ConfigDaemon.REQUEST_TIMEOUT_MILLIS * 3
+
+        when:
+        ObjectNode config = buildTree(new DaemonConfigurationSourceProvider(addressFile, fallback), "${dir}/config.yml")
+
+        then:
+        config.get('property1').asText() == 'parent'
+        fallbackOpened.empty
+        idle.inputStream.read() == -1
+
+        cleanup:
+        idle.close()
+    }
+
+    def "resolves relative locations against the working directory of each client"() {
+        given:
+        daemon.start()
+        Map<String, ObjectNode> configs = ['app1', 'app2'].collectEntries { String app ->
+            File workingDirectory = new File(dir, app)
+            workingDirectory.mkdir()
+            new File(workingDirectory, 'parent.yml').text = "property1: ${app}\n"
+            new File(workingDirectory, 'config.yml').text = 'inherits: parent.yml\nproperty2: config\n'
+            ConfigurationSourceProvider relativeFallback = { String path ->
+                fallbackOpened << path
+                new FileConfigurationSourceProvider().open(new File(path).absolute ? path : new File(workingDirectory, path).path)
+            } as ConfigurationSourceProvider
+            DaemonConfigurationSourceProvider client = new DaemonConfigurationSourceProvider(addressFile, relativeFallback,
+                    DaemonConfigurationSourceProvider.DEFAULT_TIMEOUT_MILLIS, workingDirectory)
+            [(app): buildTree(client, 'config.yml')]
+        }
+
+        expect:
+        configs.app1.get('property1').asText() == 'app1'
+        configs.app2.get('property1').asText() == 'app2'
+        fallbackOpened.empty
+        daemon.getVersion(new File(dir, 'app1'), 'config.yml') != daemon.getVersion(new File(dir, 'app2'), 'config.yml')
+    }
+
+    def "only requests the entry location from the daemon"() {
+        given:
+        DaemonConfigurationSourceProvider client
+        ConfigurationSourceProvider restartingFallback = { String path ->
+            fallbackOpened << path
+            if (path == "${dir}/config.yml") {
+                // the daemon comes back and the retry delay passes while the config is resolved locally
+                daemon.start()
+                client.@retryAfter = 0
+            }
+            new FileConfigurationSourceProvider().open(path)
+        } as ConfigurationSourceProvider
+        client = new DaemonConfigurationSourceProvider(addressFile, restartingFallback)
+
+        when:
+        ObjectNode config = buildTree(client, "${dir}/config.yml")
+
+        then:
+        config.toString() == '{"property1":"parent","property2":"config","property3":"imported"}'
+        fallbackOpened.size() == 3
+        daemon.getVersion("${dir}/parent.yml") == 0
+        daemon.getVersion("${dir}/imported.json") == 0
+
+        when:
+        buildTree(client, "${dir}/config.yml")
+
+        then:
+        fallbackOpened.size() == 3
+        client.getVersion("${dir}/config.yml") == daemon.getVersion("${dir}/config.yml")
+    }
+
+    def "resolves locally when the daemon is not running"() {
+        given:
+        DaemonConfigurationSourceProvider client = new DaemonConfigurationSourceProvider(addressFile, fallback)
+
+        when:
+        ObjectNode config = buildTree(client, "${dir}/config.yml")
+
+        then:
+        config.toString() == '{"property1":"parent","property2":"config","property3":"imported"}'
+        fallbackOpened.size() == 3
+    }
+
+    def "resolves locally when the token is wrong"() {
+        given:
+        daemon.start()
+        DaemonProtocol.Address address = DaemonProtocol.readAddress(addressFile)
+        DaemonProtocol.writeAddress(addressFile, new DaemonProtocol.Address(address.port, 'wrong'))
+        DaemonConfigurationSourceProvider client = new DaemonConfigurationSourceProvider(addressFile, fallback)
+
+        when:
+        buildTree(client, "${dir}/config.yml")
+
+        then:
+        fallbackOpened.size() == 3
+        daemon.getVersion("${dir}/config.yml") == 0
+    }
+
+}
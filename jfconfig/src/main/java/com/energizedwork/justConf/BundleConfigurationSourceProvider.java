@@ -0,0 +1,132 @@
+package com.energizedwork.justConf;
+
+import io.dropwizard.configuration.ConfigurationSourceProvider;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * a configurationSourceProvider that reads configurations from a bundle created by {@link ConfigBundle}
+ *
+ * <p>
+ * The bundle is memory mapped and its index read once, locations are resolved from the index without touching the
+ * filesystem. Opening a location not in the bundle throws a {@link FileNotFoundException}.
+ * </p>
+ */
+public class BundleConfigurationSourceProvider implements ConfigurationSourceProvider {
+
+    private final File bundle;
+    private final ByteBuffer content;
+    private final String entryLocation;
+    private final Map<String, ByteBuffer> entries;
+
+    /**
+     * @param bundle the bundle file
+     * @throws IOException when the bundle cannot be read or is not a config bundle
+     */
+    public BundleConfigurationSourceProvider(File bundle) throws IOException {
+        this.bundle = bundle;
+        try (FileChannel channel = FileChannel.open(bundle.toPath(), READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt config bundle, larger than " + Integer.MAX_VALUE + " bytes: " + bundle);
+            }
+            content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        DataInputStream index = new DataInputStream(new ByteBufferInputStream(content.duplicate()));
+        try {
+            if (index.readInt() != ConfigBundle.MAGIC) {
+                throw new IOException("Not a config bundle: " + bundle);
+            }
+            int version = index.readInt();
+            if (version != ConfigBundle.FORMAT_VERSION) {
+                throw new IOException("Unsupported config bundle version " + version + ": " + bundle);
+            }
+            entryLocation = index.readUTF();
+            int count = index.readInt();
+            Map<String, ByteBuffer> entries = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String location = index.readUTF();
+                int offset = Math.toIntExact(index.readLong());
+                int length = index.readInt();
+                if (offset < 0 || length < 0 || offset > content.limit() - length) {
+                    throw new IOException("Corrupt config bundle, entry " + location + " is outside the bundle: " + bundle);
+                }
+                ByteBuffer entry = content.duplicate();
+                entry.position(offset).limit(offset + length);
+                entries.put(location, entry.slice());
+            }
+            this.entries = Collections.unmodifiableMap(entries);
+        } catch (EOFException | IllegalArgumentException | ArithmeticException e) {
+            throw new IOException("Corrupt config bundle: " + bundle, e);
+        }
+    }
+
+    @Override
+    public InputStream open(String path) throws IOException {
+        ByteBuffer entry = entries.get(path);
+        if (entry == null) {
+            throw new FileNotFoundException(path + " is not in config bundle " + bundle);
+        }
+        return new ByteBufferInputStream(entry.duplicate());
+    }
+
+    /**
+     * @return the location of the configuration the bundle was packed from
+     */
+    public String getEntryLocation() {
+        return entryLocation;
+    }
+
+    /**
+     * @return the locations in the bundle
+     */
+    public Set<String> getLocations() {
+        return entries.keySet();
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(len, buffer.remaining());
+            buffer.get(b, off, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+}
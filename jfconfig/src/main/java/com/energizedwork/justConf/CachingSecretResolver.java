@@ -0,0 +1,179 @@
+package com.energizedwork.justConf;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * a secretResolver that caches the values of a backend resolver and looks up the references that are not cached in
+ * batches, concurrently
+ *
+ * <p>
+ * Share one instance between builds (e.g. through a {@link DWConfigFactoryFactory}) so reloads only look up the secrets
+ * that have expired. Values are cached for the time to live from when they were looked up. Close the resolver when it
+ * is no longer used to stop the threads it created.
+ * </p>
+ */
+public class CachingSecretResolver implements SecretResolver, Closeable {
+
+    /**
+     * {@value}
+     */
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    /**
+     * {@value}
+     */
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private final SecretResolver backend;
+    private final long ttlNanos;
+    private final int batchSize;
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final LongSupplier clock;
+    private final ConcurrentMap<SecretReference, CachedSecret> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param backend the resolver that looks up the secrets
+     * @param ttl how long a value is cached for
+     * @param ttlUnit the unit of the ttl
+     */
+    public CachingSecretResolver(SecretResolver backend, long ttl, TimeUnit ttlUnit) {
+        this(backend, ttl, ttlUnit, DEFAULT_BATCH_SIZE, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * @param backend the resolver that looks up the secrets
+     * @param ttl how long a value is cached for
+     * @param ttlUnit the unit of the ttl
+     * @param batchSize the most references looked up in one call to the backend
+     * @param concurrency the most calls made to the backend at the same time
+     */
+    public CachingSecretResolver(SecretResolver backend, long ttl, TimeUnit ttlUnit, int batchSize, int concurrency) {
+        this(backend, ttl, ttlUnit, batchSize, Executors.newFixedThreadPool(concurrency, new DaemonThreadFactory()), true, System::nanoTime);
+    }
+
+    CachingSecretResolver(SecretResolver backend, long ttl, TimeUnit ttlUnit, int batchSize, ExecutorService executor, LongSupplier clock) {
+        this(backend, ttl, ttlUnit, batchSize, executor, false, clock);
+    }
+
+    private CachingSecretResolver(SecretResolver backend, long ttl, TimeUnit ttlUnit, int batchSize, ExecutorService executor,
+                                  boolean ownsExecutor, LongSupplier clock) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.backend = Objects.requireNonNull(backend);
+        this.ttlNanos = ttlUnit.toNanos(ttl);
+        this.batchSize = batchSize;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.clock = clock;
+    }
+
+    @Override
+    public Map<SecretReference, String> resolve(Set<SecretReference> references) throws IOException {
+        Map<SecretReference, String> resolved = new HashMap<>(references.size() * 2);
+        List<SecretReference> misses = new ArrayList<>();
+        long now = clock.getAsLong();
+        for (SecretReference reference : references) {
+            CachedSecret cached = cache.get(reference);
+            if (cached != null && cached.expiresAt - now > 0) {
+                resolved.put(reference, cached.value);
+            } else {
+                misses.add(reference);
+            }
+        }
+        if (!misses.isEmpty()) {
+            resolved.putAll(lookup(misses));
+        }
+        return resolved;
+    }
+
+    /**
+     * remove every cached value so the next resolve looks them up again
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * @return the number of values cached, including those that have expired
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * stop the threads created by this resolver, an executor provided to it is left running
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    private Map<SecretReference, String> lookup(List<SecretReference> misses) throws IOException {
+        if (misses.size() <= batchSize) {
+            return cache(backend.resolve(new LinkedHashSet<>(misses)));
+        }
+        List<Future<Map<SecretReference, String>>> batches = new ArrayList<>();
+        for (int from = 0; from < misses.size(); from += batchSize) {
+            Set<SecretReference> batch = new LinkedHashSet<>(misses.subList(from, Math.min(from + batchSize, misses.size())));
+            batches.add(executor.submit(() -> backend.resolve(batch)));
+        }
+        Map<SecretReference, String> resolved = new HashMap<>(misses.size() * 2);
+        try {
+            for (Future<Map<SecretReference, String>> batch : batches) {
+                resolved.putAll(cache(batch.get()));
+            }
+        } catch (InterruptedException e) {
+            batches.forEach(batch -> batch.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted resolving secrets");
+        } catch (ExecutionException e) {
+            batches.forEach(batch -> batch.cancel(true));
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Failed to resolve secrets", e.getCause());
+        }
+        return resolved;
+    }
+
+    private Map<SecretReference, String> cache(Map<SecretReference, String> values) {
+        long expiresAt = clock.getAsLong() + ttlNanos;
+        values.forEach((reference, value) -> cache.put(reference, new CachedSecret(value, expiresAt)));
+        return values;
+    }
+
+    private static class CachedSecret {
+        final String value;
+        final long expiresAt;
+
+        CachedSecret(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jfconfig-secrets-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+package com.energizedwork.justConf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.configuration.ConfigurationSourceProvider;
+import io.dropwizard.configuration.FileConfigurationSourceProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static com.energizedwork.justConf.DWConfigFactory.IMPORT_KEY_LOCATION;
+import static com.energizedwork.justConf.DWConfigFactory.IMPORT_KEY_OPTIONAL;
+import static com.energizedwork.justConf.DWConfigFactory.IMPORT_KEY_PROCESS_PARENT_AND_IMPORTS;
+import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_IMPORT_KEY;
+import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_PARENT_KEY;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * packs a configuration and every configuration it inherits or imports into a single indexed bundle file
+ *
+ * <p>
+ * The bundle is read with a {@link BundleConfigurationSourceProvider} so a configuration graph is deployed, and
+ * versioned, as one file. Configurations are stored as read from the source provider, wrap the bundle source provider
+ * to apply environment variable substitution when loading.
+ * </p>
+ *
+ * <p>
+ * Bundle layout (big endian): magic {@code JFCB}, format version (int), entry config location (UTF), entry count (int),
+ * an index of location (UTF), offset (long) and length (int) for each entry followed by the configuration contents.
+ * Offsets are from the start of the file.
+ * </p>
+ */
+public class ConfigBundle {
+
+    static final int MAGIC = 0x4a464342;
+    static final int FORMAT_VERSION = 1;
+
+    private static final Logger log = LoggerFactory.getLogger(ConfigBundle.class);
+
+    private final ConfigurationSourceProvider sourceProvider;
+    private final String parentKey;
+    private final String importKey;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * @param sourceProvider the source provider used to read the configurations to pack
+     * @param parentKey the key in the yaml document to identify a parent configuration
+     * @param importKey the key in the yaml document to identify configurations to import. When null, imports are disabled.
+     */
+    public ConfigBundle(ConfigurationSourceProvider sourceProvider, String parentKey, String importKey) {
+        this.sourceProvider = sourceProvider;
+        this.parentKey = parentKey;
+        this.importKey = importKey;
+    }
+
+    /**
+     * pack a configuration and all the configurations it references, replacing the bundle file atomically
+     *
+     * <p>
+     * Optional imports that cannot be read are left out of the bundle
+     * </p>
+     *
+     * @param configLocation the location of the entry configuration (which will be understood by the source provider)
+     * @param bundle the bundle file to write
+     * @return the locations packed into the bundle
+     * @throws IOException when a required configuration cannot be read or the bundle cannot be written
+     */
+    public Set<String> pack(String configLocation, File bundle) throws IOException {
+        Map<String, byte[]> entries = collect(configLocation);
+        Path target = bundle.getAbsoluteFile().toPath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                write(configLocation, entries, out);
+            }
+            Files.move(temp, target, REPLACE_EXISTING, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.debug("Packed {} configs into '{}'", entries.size(), target);
+        return entries.keySet();
+    }
+
+    Map<String, byte[]> collect(String configLocation) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        collect(configLocation, true, false, entries, new HashSet<>());
+        return entries;
+    }
+
+    /**
+     * a location is packed once but its parent and imports are followed the first time it is reached with
+     * processParentAndImports, which may not be the first time it is reached
+     */
+    private void collect(String location, boolean processParentAndImports, boolean optional, Map<String, byte[]> entries,
+                         Set<String> processed) throws IOException {
+        byte[] content = entries.get(location);
+        if (content == null) {
+            try {
+                content = read(location);
+            } catch (IOException e) {
+                if (optional) {
+                    log.debug("Not packing optional config '{}'", location, e);
+                    return;
+                }
+                throw e;
+            }
+            entries.put(location, content);
+        }
+        if (!processParentAndImports || !processed.add(location)) {
+            return;
+        }
+        JsonNode tree = content.length == 0 ? null : mapper.readTree(ConfigFormat.createParser(location, new ByteArrayInputStream(content)));
+        if (tree == null || !tree.isObject()) {
+            return;
+        }
+        if (importKey != null) {
+            JsonNode importNode = tree.get(importKey);
+            if (importNode != null && importNode.isArray()) {
+                for (JsonNode node : importNode) {
+                    collectImport(node, entries, processed);
+                }
+            } else if (importNode != null) {
+                collectImport(importNode, entries, processed);
+            }
+        }
+        JsonNode parentNode = tree.get(parentKey);
+        if (parentNode != null && parentNode.isTextual()) {
+            collect(parentNode.asText(), true, false, entries, processed);
+        }
+    }
+
+    private void collectImport(JsonNode importNode, Map<String, byte[]> entries, Set<String> processed) throws IOException {
+        if (importNode.isTextual()) {
+            collect(importNode.asText(), true, false, entries, processed);
+        } else if (importNode.isObject() && importNode.path(IMPORT_KEY_LOCATION).isTextual()) {
+            collect(importNode.get(IMPORT_KEY_LOCATION).asText(),
+                    getBooleanValue(importNode, IMPORT_KEY_PROCESS_PARENT_AND_IMPORTS, true),
+                    getBooleanValue(importNode, IMPORT_KEY_OPTIONAL, false),
+                    entries,
+                    processed);
+        }
+    }
+
+    private static boolean getBooleanValue(JsonNode objectNode, String key, boolean defaultValue) {
+        JsonNode booleanNode = objectNode.get(key);
+        return booleanNode != null && booleanNode.isBoolean() ? booleanNode.asBoolean() : defaultValue;
+    }
+
+    private byte[] read(String location) throws IOException {
+        try (InputStream in = sourceProvider.open(location)) {
+            if (in == null) {
+                throw new FileNotFoundException(location);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static void write(String configLocation, Map<String, byte[]> entries, OutputStream out) throws IOException {
+        int indexSize = writeIndex(configLocation, entries, 0, new DataOutputStream(new ByteArrayOutputStream()));
+        DataOutputStream data = new DataOutputStream(out);
+        writeIndex(configLocation, entries, indexSize, data);
+        for (byte[] content : entries.values()) {
+            data.write(content);
+        }
+        data.flush();
+    }
+
+    private static int writeIndex(String configLocation, Map<String, byte[]> entries, long dataOffset, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(configLocation);
+        out.writeInt(entries.size());
+        long offset = dataOffset;
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            if (offset + entry.getValue().length > Integer.MAX_VALUE) {
+                throw new IOException("Config bundle would exceed " + Integer.MAX_VALUE + " bytes");
+            }
+            out.writeUTF(entry.getKey());
+            out.writeLong(offset);
+            out.writeInt(entry.getValue().length);
+            offset += entry.getValue().length;
+        }
+        return out.size();
+    }
+
+    /**
+     * pack a configuration from the filesystem
+     *
+     * <p>
+     * {@code java com.energizedwork.justConf.ConfigBundle <config> <bundle> [parentKey] [importKey]}
+     * </p>
+     *
+     * @param args the entry configuration, the bundle file and optionally the parent and import keys
+     * @throws IOException when a configuration cannot be read or the bundle cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ConfigBundle <config> <bundle> [parentKey] [importKey]");
+            System.exit(1);
+        }
+        String parentKey = args.length > 2 ? args[2] : DEFAULT_PARENT_KEY;
+        String importKey = args.length > 3 ? args[3] : DEFAULT_IMPORT_KEY;
+        Set<String> packed = new ConfigBundle(new FileConfigurationSourceProvider(), parentKey, importKey)
+                .pack(args[0], new File(args[1]));
+        packed.forEach(System.out::println);
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.energizedwork.justConf;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.format.DataFormatDetector;
+import com.fasterxml.jackson.core.format.DataFormatMatcher;
+import com.fasterxml.jackson.core.format.MatchStrength;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * the formats a configuration file can be written in
+ *
+ * <p>
+ * The format of each file is chosen from the extension of its location and, when the extension is not recognised,
+ * by sniffing the start of its content. Content that is not recognised is read as YAML. A source provider can
+ * {@link #mark} the content it opens with its format to override the extension. All formats can be used for the top level
+ * config, inherited configs and imports.
+ * </p>
+ */
+public enum ConfigFormat {
+
+    YAML(new YAMLFactory(), false, ".yml", ".yaml"),
+    JSON(new JsonFactory(), false, ".json"),
+    SMILE(new SmileFactory(), true, ".sml", ".smile"),
+    CBOR(new CBORFactory(), true, ".cbor");
+
+    private static final DataFormatDetector DETECTOR = new DataFormatDetector(SMILE.factory, CBOR.factory, JSON.factory)
+            .withMinimalMatch(MatchStrength.SOLID_MATCH)
+            .withOptimalMatch(MatchStrength.FULL_MATCH);
+
+    private final JsonFactory factory;
+    private final boolean binary;
+    private final String[] extensions;
+
+    ConfigFormat(JsonFactory factory, boolean binary, String... extensions) {
+        this.factory = factory;
+        this.binary = binary;
+        this.extensions = extensions;
+    }
+
+    /**
+     * @return the factory for parsers of this format
+     */
+    public JsonFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * @return true when the format is not text (and so cannot have environment variables substituted)
+     */
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * @param location the location of a configuration file
+     * @return the format identified by the extension of the location or null when it is not recognised
+     */
+    public static ConfigFormat forLocation(String location) {
+        if (location == null) {
+            return null;
+        }
+        String path = location.toLowerCase(Locale.ROOT);
+        int queryOrFragment = indexOfAny(path, '?', '#');
+        if (queryOrFragment >= 0) {
+            path = path.substring(0, queryOrFragment);
+        }
+        for (ConfigFormat format : values()) {
+            for (String extension : format.extensions) {
+                if (path.endsWith(extension)) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * mark the content opened by a configurationSourceProvider as being in this format, whatever its location
+     *
+     * <p>
+     * For source providers that serve content in a different format to the one their locations suggest
+     * </p>
+     *
+     * @param in the content of a configuration file
+     * @return the content, marked with this format
+     */
+    public InputStream mark(InputStream in) {
+        return new FormattedInputStream(in, this);
+    }
+
+    /**
+     * @param location the location of a configuration file
+     * @param in the content opened from the location
+     * @return the format the content was marked with, otherwise the format identified by the extension of the location or
+     * null when it is not recognised
+     */
+    public static ConfigFormat forSource(String location, InputStream in) {
+        if (in instanceof FormattedInputStream) {
+            return ((FormattedInputStream) in).format;
+        }
+        return forLocation(location);
+    }
+
+    /**
+     * detect the format of content that is not marked and whose location has no recognised extension
+     *
+     * <p>
+     * For source providers that need to know the format before the content is parsed, the start of the content is
+     * sniffed the same way as by {@link #createParser(ConfigFormat, InputStream)}
+     * </p>
+     *
+     * @param location the location of a configuration file
+     * @param in the content opened from the location
+     * @return the content, marked with its format when one was detected
+     * @throws IOException when the start of the content cannot be read
+     */
+    public static InputStream detect(String location, InputStream in) throws IOException {
+        if (forSource(location, in) != null) {
+            return in;
+        }
+        DataFormatMatcher match = DETECTOR.findFormat(in);
+        InputStream content = match.getDataStream();
+        if (match.hasMatch()) {
+            for (ConfigFormat format : values()) {
+                if (format.factory == match.getMatch()) {
+                    return format.mark(content);
+                }
+            }
+        }
+        return content;
+    }
+
+    /**
+     * create a parser for a configuration file, using its location or content to choose the format
+     *
+     * @param location the location of the configuration file
+     * @param in the content of the configuration file
+     * @return a parser for the content
+     * @throws IOException when the start of the content cannot be read
+     */
+    public static JsonParser createParser(String location, InputStream in) throws IOException {
+        return createParser(forSource(location, in), in);
+    }
+
+    /**
+     * create a parser for a configuration file, detecting the format from the content when it is not known
+     *
+     * @param format the format of the configuration file, or null to detect it
+     * @param in the content of the configuration file
+     * @return a parser for the content
+     * @throws IOException when the start of the content cannot be read
+     */
+    public static JsonParser createParser(ConfigFormat format, InputStream in) throws IOException {
+        if (format != null) {
+            return format.factory.createParser(in);
+        }
+        DataFormatMatcher match = DETECTOR.findFormat(in);
+        if (match.hasMatch()) {
+            return match.createParserWithMatch();
+        }
+        return YAML.factory.createParser(match.getDataStream());
+    }
+
+    private static class FormattedInputStream extends FilterInputStream {
+        private final ConfigFormat format;
+
+        FormattedInputStream(InputStream in, ConfigFormat format) {
+            super(in);
+            this.format = format;
+        }
+    }
+
+    private static int indexOfAny(String s, char... chars) {
+        int index = -1;
+        for (char c : chars) {
+            int i = s.indexOf(c);
+            if (i >= 0 && (index < 0 || i < index)) {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+}
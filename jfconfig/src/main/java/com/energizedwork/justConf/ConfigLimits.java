@@ -0,0 +1,148 @@
+package com.energizedwork.justConf;
+
+/**
+ * resource limits applied by the {@link DWConfigFactory} while reading configuration files
+ *
+ * <p>
+ * Limits are checked while each file is streamed so an oversized or pathological configuration fails fast with the
+ * chain of files that led to it, rather than exhausting the heap. Instances are immutable, use the {@code with*}
+ * methods to derive a copy with a single limit changed.
+ * </p>
+ */
+public final class ConfigLimits {
+
+    /**
+     * no limits, the default
+     */
+    public static final ConfigLimits UNLIMITED = new ConfigLimits(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE,
+            Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final long maxBytesPerFile;
+    private final long maxNodes;
+    private final int maxDepth;
+    private final int maxAliases;
+    private final int maxImportsPerNode;
+    private final int maxFiles;
+
+    /**
+     * @param maxBytesPerFile the maximum number of bytes read from any single configuration file
+     * @param maxNodes the maximum number of nodes (objects, arrays and scalars) read across all files in a build
+     * @param maxDepth the maximum object/array nesting depth of any single configuration file
+     * @param maxAliases the maximum number of YAML alias references in any single configuration file
+     * @param maxImportsPerNode the maximum number of imports listed under a single import key
+     * @param maxFiles the maximum number of files (external, inherited and imported) read in a build
+     */
+    public ConfigLimits(long maxBytesPerFile, long maxNodes, int maxDepth, int maxAliases, int maxImportsPerNode, int maxFiles) {
+        this.maxBytesPerFile = requirePositive(maxBytesPerFile, "maxBytesPerFile");
+        this.maxNodes = requirePositive(maxNodes, "maxNodes");
+        this.maxDepth = (int) requirePositive(maxDepth, "maxDepth");
+        this.maxAliases = (int) requireNotNegative(maxAliases, "maxAliases");
+        this.maxImportsPerNode = (int) requireNotNegative(maxImportsPerNode, "maxImportsPerNode");
+        this.maxFiles = (int) requirePositive(maxFiles, "maxFiles");
+    }
+
+    /**
+     * @param maxBytesPerFile the maximum number of bytes read from any single configuration file
+     * @return a copy of these limits with maxBytesPerFile changed
+     */
+    public ConfigLimits withMaxBytesPerFile(long maxBytesPerFile) {
+        return new ConfigLimits(maxBytesPerFile, maxNodes, maxDepth, maxAliases, maxImportsPerNode, maxFiles);
+    }
+
+    /**
+     * @param maxNodes the maximum number of nodes (objects, arrays and scalars) read across all files in a build
+     * @return a copy of these limits with maxNodes changed
+     */
+    public ConfigLimits withMaxNodes(long maxNodes) {
+        return new ConfigLimits(maxBytesPerFile, maxNodes, maxDepth, maxAliases, maxImportsPerNode, maxFiles);
+    }
+
+    /**
+     * @param maxDepth the maximum object/array nesting depth of any single configuration file
+     * @return a copy of these limits with maxDepth changed
+     */
+    public ConfigLimits withMaxDepth(int maxDepth) {
+        return new ConfigLimits(maxBytesPerFile, maxNodes, maxDepth, maxAliases, maxImportsPerNode, maxFiles);
+    }
+
+    /**
+     * @param maxAliases the maximum number of YAML alias references in any single configuration file
+     * @return a copy of these limits with maxAliases changed
+     */
+    public ConfigLimits withMaxAliases(int maxAliases) {
+        return new ConfigLimits(maxBytesPerFile, maxNodes, maxDepth, maxAliases, maxImportsPerNode, maxFiles);
+    }
+
+    /**
+     * @param maxImportsPerNode the maximum number of imports listed under a single import key
+     * @return a copy of these limits with maxImportsPerNode changed
+     */
+    public ConfigLimits withMaxImportsPerNode(int maxImportsPerNode) {
+        return new ConfigLimits(maxBytesPerFile, maxNodes, maxDepth, maxAliases, maxImportsPerNode, maxFiles);
+    }
+
+    /**
+     * @param maxFiles the maximum number of files (external, inherited and imported) read in a build
+     * @return a copy of these limits with maxFiles changed
+     */
+    public ConfigLimits withMaxFiles(int maxFiles) {
+        return new ConfigLimits(maxBytesPerFile, maxNodes, maxDepth, maxAliases, maxImportsPerNode, maxFiles);
+    }
+
+    /**
+     * @return the maximum number of bytes read from any single configuration file
+     */
+    public long getMaxBytesPerFile() {
+        return maxBytesPerFile;
+    }
+
+    /**
+     * @return the maximum number of nodes (objects, arrays and scalars) read across all files in a build
+     */
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * @return the maximum object/array nesting depth of any single configuration file
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return the maximum number of YAML alias references in any single configuration file
+     */
+    public int getMaxAliases() {
+        return maxAliases;
+    }
+
+    /**
+     * @return the maximum number of imports listed under a single import key
+     */
+    public int getMaxImportsPerNode() {
+        return maxImportsPerNode;
+    }
+
+    /**
+     * @return the maximum number of files (external, inherited and imported) read in a build
+     */
+    public int getMaxFiles() {
+        return maxFiles;
+    }
+
+    private static long requirePositive(long value, String name) {
+        if (value < 1) {
+            throw new IllegalArgumentException(name + " must be greater than zero");
+        }
+        return value;
+    }
+
+    private static long requireNotNegative(long value, String name) {
+        if (value < 0) {
+            throw new IllegalArgumentException(name + " must not be negative");
+        }
+        return value;
+    }
+
+}
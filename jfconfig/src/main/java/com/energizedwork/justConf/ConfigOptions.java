@@ -0,0 +1,97 @@
+package com.energizedwork.justConf;
+
+import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_ARRAY_MERGE_KEY;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * the optional behaviour of the {@link DWConfigFactory}, in addition to inheritance and imports
+ *
+ * <p>
+ * Instances are immutable, start from {@link #DEFAULT} and use the {@code with*} methods to derive a copy with a single
+ * option changed. Share one instance (and so its interner and secret resolver) between the factories of a service.
+ * </p>
+ */
+public final class ConfigOptions {
+
+    /**
+     * no limits, no interning, secret references left as they are and array merge strategies declared under
+     * {@value DWConfigFactoryFactory#DEFAULT_ARRAY_MERGE_KEY}
+     */
+    public static final ConfigOptions DEFAULT = new ConfigOptions(ConfigLimits.UNLIMITED, null, null, DEFAULT_ARRAY_MERGE_KEY);
+
+    private final ConfigLimits limits;
+    private final NodeInterner interner;
+    private final SecretResolver secretResolver;
+    private final String arrayMergeKey;
+
+    private ConfigOptions(ConfigLimits limits, NodeInterner interner, SecretResolver secretResolver, String arrayMergeKey) {
+        this.limits = requireNonNull(limits);
+        this.interner = interner;
+        this.secretResolver = secretResolver;
+        this.arrayMergeKey = arrayMergeKey;
+    }
+
+    /**
+     * @param limits the resource limits applied while reading configuration files
+     * @return a copy of these options with the limits changed
+     */
+    public ConfigOptions withLimits(ConfigLimits limits) {
+        return new ConfigOptions(limits, interner, secretResolver, arrayMergeKey);
+    }
+
+    /**
+     * @param interner an intern table for the field names and values of the config tree. When null, interning is disabled.
+     * @return a copy of these options with the interner changed
+     */
+    public ConfigOptions withInterner(NodeInterner interner) {
+        return new ConfigOptions(limits, interner, secretResolver, arrayMergeKey);
+    }
+
+    /**
+     * @param secretResolver a resolver for the {@link SecretReference}s in the config tree. When null, references are
+     *                       left as they are.
+     * @return a copy of these options with the secret resolver changed
+     */
+    public ConfigOptions withSecretResolver(SecretResolver secretResolver) {
+        return new ConfigOptions(limits, interner, secretResolver, arrayMergeKey);
+    }
+
+    /**
+     * @param arrayMergeKey the key in the yaml document to identify the array merge strategies of a configuration. When
+     *                      null, arrays always replace the arrays they are merged over.
+     * @return a copy of these options with the array merge key changed
+     */
+    public ConfigOptions withArrayMergeKey(String arrayMergeKey) {
+        return new ConfigOptions(limits, interner, secretResolver, arrayMergeKey);
+    }
+
+    /**
+     * @return the resource limits applied while reading configuration files
+     */
+    public ConfigLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * @return the intern table for the field names and values of the config tree, or null when interning is disabled
+     */
+    public NodeInterner getInterner() {
+        return interner;
+    }
+
+    /**
+     * @return the resolver for the {@link SecretReference}s in the config tree, or null when references are left as
+     * they are
+     */
+    public SecretResolver getSecretResolver() {
+        return secretResolver;
+    }
+
+    /**
+     * @return the key identifying the array merge strategies of a configuration, or null when arrays always replace
+     */
+    public String getArrayMergeKey() {
+        return arrayMergeKey;
+    }
+
+}
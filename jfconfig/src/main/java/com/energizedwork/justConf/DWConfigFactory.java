@@ -1,10 +1,15 @@
 package com.energizedwork.justConf;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLParser;
 import io.dropwizard.configuration.BaseConfigurationFactory;
 import io.dropwizard.configuration.ConfigurationException;
 import io.dropwizard.configuration.ConfigurationSourceProvider;
@@ -14,9 +19,11 @@ import org.slf4j.LoggerFactory;
 
 import javax.validation.Validator;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.function.Function;
 
 import static com.fasterxml.jackson.dataformat.yaml.YAMLFactory.FORMAT_NAME_YAML;
 import static java.util.Objects.requireNonNull;
@@ -25,6 +32,10 @@ import static java.util.Objects.requireNonNull;
  * a dropwizard configurationFactory supporting configuration inheritance, imports, optional external configuration file
  * and system property overrides
  *
+ * <p>
+ * Each configuration file may be YAML, JSON, Smile or CBOR, see {@link ConfigFormat}
+ * </p>
+ *
  * @param <T> the class that will be configured
  */
 public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
@@ -54,6 +65,31 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
      */
     public static final String IMPORT_KEY_PROCESS_PARENT_AND_IMPORTS = "processParentAndImports";
 
+    /**
+     * {@value}
+     */
+    public static final String ARRAY_MERGE_REPLACE = "replace";
+
+    /**
+     * {@value}
+     */
+    public static final String ARRAY_MERGE_APPEND = "append";
+
+    /**
+     * {@value}
+     */
+    public static final String ARRAY_MERGE_PREPEND = "prepend";
+
+    /**
+     * {@value}
+     */
+    public static final String ARRAY_MERGE_BY_KEY = "key";
+
+    /**
+     * {@value}
+     */
+    public static final String REDACTED_SECRET = "******";
+
     /**
      * {@value}
      */
@@ -64,7 +100,13 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
     final String parentKey;
     final String importKey;
     final File externalConfigFile;
+    final ConfigLimits limits;
+    final NodeInterner interner;
+    final SecretResolver secretResolver;
+    final String arrayMergeKey;
     final List<String> configPaths = new ArrayList<String>();
+    int filesRead;
+    long nodesRead;
 
     /**
      * @param klass the class to configure
@@ -83,10 +125,36 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
                            String parentKey,
                            String importKey,
                            File externalConfigFile) {
+        this(klass, validator, objectMapper, propertyPrefix, parentKey, importKey, externalConfigFile, ConfigOptions.DEFAULT);
+    }
+
+    /**
+     * @param klass the class to configure
+     * @param validator the validator to ensure the configuration has been fully configured
+     * @param objectMapper the objectMapper used to bind the yaml config to the cofiguration instance
+     * @param propertyPrefix the prefix for system properties used to override configuration
+     * @param parentKey the key in the yaml document to identify a parent configuration
+     * @param importKey the key in the yaml document to identify configurations to import. When null, imports are disabled.
+     * @param externalConfigFile an optional external configuration file for overriding config. Set to null when not required.
+     *                           The file does not need to exist
+     * @param options the resource limits, interner, secret resolver and array merge key, see {@link ConfigOptions}
+     */
+    public DWConfigFactory(Class<T> klass,
+                           Validator validator,
+                           ObjectMapper objectMapper,
+                           String propertyPrefix,
+                           String parentKey,
+                           String importKey,
+                           File externalConfigFile,
+                           ConfigOptions options) {
         super(new YAMLFactory(), FORMAT_NAME_YAML, klass, validator, objectMapper, propertyPrefix);
         this.parentKey = parentKey;
         this.importKey = importKey;
         this.externalConfigFile = externalConfigFile;
+        this.limits = options.getLimits();
+        this.interner = options.getInterner();
+        this.secretResolver = options.getSecretResolver();
+        this.arrayMergeKey = options.getArrayMergeKey();
     }
 
     /**
@@ -114,6 +182,23 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
      * @throws ConfigurationException
      */
     public ObjectNode buildTree(ConfigurationSourceProvider provider, String path) throws IOException, ConfigurationException {
+        return buildTree(provider, path, false);
+    }
+
+    /**
+     * create the configuration tree (with inheritance, imports, etc) and return before mapping onto the configuration object
+     * and validating
+     *
+     * @param provider the configurationSourceProvider to use to load configuration files
+     * @param path the path to the configuration that will be understood by the provider
+     * @param redactSecrets when true, secret references are still resolved but replaced with {@value #REDACTED_SECRET}
+     * @return the config tree
+     * @throws IOException
+     * @throws ConfigurationException
+     */
+    public ObjectNode buildTree(ConfigurationSourceProvider provider, String path, boolean redactSecrets) throws IOException, ConfigurationException {
+        filesRead = 0;
+        nodesRead = 0;
         ObjectNode externalConfig = null;
         if (externalConfigFile != null) {
             String externalPath = externalConfigFile.getCanonicalPath();
@@ -132,7 +217,84 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
         if (externalConfig != null) {
             merge(externalConfig, topConfigNode);
         }
-        return mergeParents(provider, topConfigNode);
+        ObjectNode config = mergeParents(provider, topConfigNode);
+        if (arrayMergeKey != null) {
+            config.remove(arrayMergeKey);
+        }
+        if (secretResolver != null) {
+            resolveSecrets(config, path, redactSecrets);
+        }
+        return config;
+    }
+
+    /**
+     * replace every secret reference in the tree, looking all of them up with a single call to the resolver
+     */
+    private void resolveSecrets(ObjectNode config, String path, boolean redact) throws DWConfigFactoryException {
+        Set<SecretReference> references = new LinkedHashSet<>();
+        findSecretReferences(config, references);
+        if (references.isEmpty()) {
+            return;
+        }
+        Map<SecretReference, String> secrets;
+        try {
+            secrets = secretResolver.resolve(references);
+        } catch (IOException e) {
+            throw new DWConfigFactoryException("Failed to resolve secrets", path, configPaths, e);
+        }
+        List<SecretReference> unresolved = new ArrayList<>();
+        for (SecretReference reference : references) {
+            if (secrets.get(reference) == null) {
+                unresolved.add(reference);
+            }
+        }
+        if (!unresolved.isEmpty()) {
+            throw new DWConfigFactoryException("Unresolved secret references " + unresolved, path, configPaths);
+        }
+        log.debug("Resolved {} secret references", references.size());
+        replaceSecretReferences(config, redact ? reference -> REDACTED_SECRET : secrets::get);
+    }
+
+    private static void findSecretReferences(JsonNode node, Set<SecretReference> references) {
+        if (node.isTextual()) {
+            SecretReference.findAll(node.textValue(), references);
+        } else if (node.isContainerNode()) {
+            for (JsonNode child : node) {
+                findSecretReferences(child, references);
+            }
+        }
+    }
+
+    private static void replaceSecretReferences(JsonNode node, Function<SecretReference, String> secrets) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getValue().isTextual()) {
+                    String value = field.getValue().textValue();
+                    String replaced = SecretReference.replaceAll(value, secrets);
+                    if (replaced != value) {
+                        field.setValue(JsonNodeFactory.instance.textNode(replaced));
+                    }
+                } else {
+                    replaceSecretReferences(field.getValue(), secrets);
+                }
+            }
+        } else if (node.isArray()) {
+            ArrayNode array = (ArrayNode) node;
+            for (int i = 0; i < array.size(); i++) {
+                JsonNode element = array.get(i);
+                if (element.isTextual()) {
+                    String value = element.textValue();
+                    String replaced = SecretReference.replaceAll(value, secrets);
+                    if (replaced != value) {
+                        array.set(i, JsonNodeFactory.instance.textNode(replaced));
+                    }
+                } else {
+                    replaceSecretReferences(element, secrets);
+                }
+            }
+        }
     }
 
     private ObjectNode importTree(ConfigurationSourceProvider provider, String path) throws IOException, ConfigurationException {
@@ -152,6 +314,10 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
         if (importNode.isTextual() || importNode.isObject()) {
             return mergeFromImportNode(sourceProvider, importer, importNode);
         } else if (importNode.isArray()) {
+            if (importNode.size() > limits.getMaxImportsPerNode()) {
+                throw new DWConfigLimitException("Too many imports (" + importNode.size() + "), the limit is " + limits.getMaxImportsPerNode(),
+                        configPaths.get(configPaths.size() - 1), configPaths);
+            }
             Iterator<JsonNode> it = importNode.elements();
             ObjectNode merging = importer;
             while (it.hasNext()) {
@@ -187,6 +353,10 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
             }
 
             restoreConfigPaths(originalConfigPaths);
+            if ((importConfig.object != null || importConfig.target != null) && arrayMergeKey != null) {
+                // array merge paths are relative to the root of the imported config
+                in.remove(arrayMergeKey);
+            }
             return mergeAndReturnDest(importer, moveTarget(getSubObject(in, importConfig.object), importConfig.target));
         } else {
             return importer;
@@ -281,18 +451,37 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
     }
 
     private ObjectNode readTree(ConfigurationSourceProvider sourceProvider, String path) throws DWConfigFactoryException {
+        if (++filesRead > limits.getMaxFiles()) {
+            throw new DWConfigLimitException("Too many config files, the limit is " + limits.getMaxFiles(), path, addIfNotAlreadyAdded(configPaths, path));
+        }
         InputStream configIs;
         try {
             configIs = sourceProvider.open(path);
+        } catch (LimitExceededException e) {
+            // the source provider buffers the file, e.g. to substitute environment variables
+            throw new DWConfigLimitException(e.getMessage(), path, addIfNotAlreadyAdded(configPaths, path));
         } catch (Exception e) {
             throw new DWConfigFactoryException("Failed to open config file", path, addIfNotAlreadyAdded(configPaths, path), e);
         }
         try {
-            ObjectNode on = mapper.readTree(createParser(configIs));
+            JsonParser parser = new ConfigFileParser(ConfigFormat.createParser(ConfigFormat.forSource(path, configIs), new LimitingInputStream(configIs)));
+            ObjectNode on = interner == null ? mapper.readTree(parser) : mapper.reader().with(interner.getNodeFactory()).readTree(parser);
             if (on == null) {
                 throw new DWConfigFactoryException("Failed to read config file", path, addIfNotAlreadyAdded(configPaths, path));
             }
+            if (arrayMergeKey != null) {
+                // validated as the file is read so errors name the file that declared them
+                readArrayMergeStrategies(on.get(arrayMergeKey), path);
+            }
             return on;
+        } catch (LimitExceededException e) {
+            throw new DWConfigLimitException(e.getMessage(), path, addIfNotAlreadyAdded(configPaths, path));
+        } catch (RuntimeException e) {
+            // snakeyaml wraps exceptions thrown by the underlying stream
+            if (e.getCause() instanceof LimitExceededException) {
+                throw new DWConfigLimitException(e.getCause().getMessage(), path, addIfNotAlreadyAdded(configPaths, path));
+            }
+            throw e;
         } catch (IOException e) {
             throw new DWConfigFactoryException(path, addIfNotAlreadyAdded(configPaths, path), e);
         } finally {
@@ -304,27 +493,98 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
         }
     }
 
-    private ObjectNode mergeAndReturnDest(ObjectNode sourceNode, ObjectNode destNode) {
+    private ObjectNode mergeAndReturnDest(ObjectNode sourceNode, ObjectNode destNode) throws DWConfigFactoryException {
         merge(sourceNode, destNode);
         return destNode;
     }
 
-    private void merge(JsonNode sourceNode, JsonNode destNode) {
+    /**
+     * merge the source config over the dest config using the array merge strategies declared in either
+     *
+     * <p>
+     * The declarations are merged per path, the source declaring a path overrides the dest, and the merged declarations
+     * are left in the dest so they also apply when the dest is merged over the configs it inherits and imports
+     * </p>
+     */
+    private void merge(ObjectNode sourceNode, ObjectNode destNode) throws DWConfigFactoryException {
+        if (arrayMergeKey == null) {
+            merge(sourceNode, destNode, "", Collections.emptyMap());
+            return;
+        }
+        JsonNode declarations = mergeArrayMergeDeclarations(sourceNode.remove(arrayMergeKey), destNode.remove(arrayMergeKey));
+        merge(sourceNode, destNode, "", readArrayMergeStrategies(declarations, configPaths.get(configPaths.size() - 1)));
+        if (declarations != null) {
+            destNode.set(arrayMergeKey, declarations);
+        }
+    }
+
+    private static JsonNode mergeArrayMergeDeclarations(JsonNode sourceDeclarations, JsonNode destDeclarations) {
+        if (destDeclarations == null || !destDeclarations.isObject()) {
+            return sourceDeclarations;
+        }
+        if (sourceDeclarations == null || !sourceDeclarations.isObject()) {
+            return destDeclarations;
+        }
+        ObjectNode merged = ((ObjectNode) destDeclarations).deepCopy();
+        merged.setAll((ObjectNode) sourceDeclarations);
+        return merged;
+    }
+
+    private void merge(JsonNode sourceNode, JsonNode destNode, String path, Map<String, ArrayMergeStrategy> strategies) {
         if (sourceNode != null) {
             Iterator<String> fieldNames = sourceNode.fieldNames();
             while (fieldNames.hasNext()) {
                 String fieldName = fieldNames.next();
+                String fieldPath = path.isEmpty() ? fieldName : path + OBJECT_PATH_SEPARATOR + fieldName;
                 JsonNode sourceFieldValue = sourceNode.get(fieldName);
                 JsonNode destFieldValue = destNode.get(fieldName);
                 if (destFieldValue != null && destFieldValue.isObject()) {
-                    merge(sourceFieldValue, destFieldValue);
+                    merge(sourceFieldValue, destFieldValue, fieldPath, strategies);
                 } else if (destNode instanceof ObjectNode) {
+                    ArrayMergeStrategy strategy = strategies.get(fieldPath);
+                    if (strategy != null && sourceFieldValue.isArray() && destFieldValue != null && destFieldValue.isArray()) {
+                        sourceFieldValue = strategy.merge((ArrayNode) sourceFieldValue, (ArrayNode) destFieldValue, fieldPath, strategies);
+                    }
                     ((ObjectNode) destNode).replace(fieldName, sourceFieldValue);
                 }
             }
         }
     }
 
+    private Map<String, ArrayMergeStrategy> readArrayMergeStrategies(JsonNode strategiesNode, String declaredIn) throws DWConfigFactoryException {
+        if (strategiesNode == null || strategiesNode.isNull()) {
+            return Collections.emptyMap();
+        }
+        if (!strategiesNode.isObject()) {
+            throw new DWConfigFactoryException("Invalid " + arrayMergeKey + ", expected a map of paths to strategies",
+                    declaredIn, addIfNotAlreadyAdded(configPaths, declaredIn));
+        }
+        Map<String, ArrayMergeStrategy> strategies = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> it = strategiesNode.fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            strategies.put(entry.getKey(), readArrayMergeStrategy(entry.getKey(), entry.getValue(), declaredIn));
+        }
+        return strategies;
+    }
+
+    private ArrayMergeStrategy readArrayMergeStrategy(String path, JsonNode strategyNode, String declaredIn) throws DWConfigFactoryException {
+        if (strategyNode.isTextual()) {
+            switch (strategyNode.asText()) {
+                case ARRAY_MERGE_REPLACE:
+                    return ArrayMergeStrategy.REPLACE;
+                case ARRAY_MERGE_APPEND:
+                    return ArrayMergeStrategy.APPEND;
+                case ARRAY_MERGE_PREPEND:
+                    return ArrayMergeStrategy.PREPEND;
+            }
+        } else if (strategyNode.isObject() && strategyNode.path(ARRAY_MERGE_BY_KEY).isTextual()) {
+            return new ArrayMergeStrategy(strategyNode.get(ARRAY_MERGE_BY_KEY).asText());
+        }
+        throw new DWConfigFactoryException("Invalid array merge strategy '" + strategyNode + "' for " + path,
+                declaredIn, addIfNotAlreadyAdded(configPaths, declaredIn));
+    }
+
     private static List<String> addIfNotAlreadyAdded(List<String> source, String newPath) {
         if (source.get(source.size() - 1).equals(newPath)) {
             return source;
@@ -344,6 +604,86 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
         }
     }
 
+    /**
+     * how an array in the source config is combined with the same array in the dest config
+     */
+    private static class ArrayMergeStrategy {
+        static final ArrayMergeStrategy REPLACE = new ArrayMergeStrategy(ARRAY_MERGE_REPLACE, null);
+        static final ArrayMergeStrategy APPEND = new ArrayMergeStrategy(ARRAY_MERGE_APPEND, null);
+        static final ArrayMergeStrategy PREPEND = new ArrayMergeStrategy(ARRAY_MERGE_PREPEND, null);
+
+        final String name;
+        final String keyField;
+
+        ArrayMergeStrategy(String keyField) {
+            this(ARRAY_MERGE_BY_KEY, keyField);
+        }
+
+        private ArrayMergeStrategy(String name, String keyField) {
+            this.name = name;
+            this.keyField = keyField;
+        }
+
+        /**
+         * @return the merged array, which may be the source or dest
+         */
+        ArrayNode merge(ArrayNode source, ArrayNode dest, String path, Map<String, ArrayMergeStrategy> strategies) {
+            switch (name) {
+                case ARRAY_MERGE_APPEND:
+                    return dest.addAll(source);
+                case ARRAY_MERGE_PREPEND:
+                    return source.addAll(dest);
+                case ARRAY_MERGE_BY_KEY:
+                    return mergeByKey(source, dest, path, strategies);
+                default:
+                    return source;
+            }
+        }
+
+        /**
+         * objects in the source are merged over the object in the dest with the same key, all other entries in the source
+         * are appended
+         */
+        private ArrayNode mergeByKey(ArrayNode source, ArrayNode dest, String path, Map<String, ArrayMergeStrategy> strategies) {
+            Map<JsonNode, JsonNode> destByKey = new HashMap<>(dest.size() * 2);
+            for (JsonNode destElement : dest) {
+                JsonNode key = destElement.get(keyField);
+                if (key != null && key.isValueNode()) {
+                    destByKey.putIfAbsent(key, destElement);
+                }
+            }
+            for (JsonNode sourceElement : source) {
+                JsonNode key = sourceElement.get(keyField);
+                JsonNode destElement = key != null ? destByKey.get(key) : null;
+                if (destElement != null && sourceElement.isObject() && destElement.isObject()) {
+                    mergeElement(sourceElement, destElement, path, strategies);
+                } else {
+                    dest.add(sourceElement);
+                }
+            }
+            return dest;
+        }
+
+        private static void mergeElement(JsonNode source, JsonNode dest, String path, Map<String, ArrayMergeStrategy> strategies) {
+            Iterator<Map.Entry<String, JsonNode>> fields = source.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                JsonNode destFieldValue = dest.get(field.getKey());
+                String fieldPath = path + OBJECT_PATH_SEPARATOR + field.getKey();
+                JsonNode sourceFieldValue = field.getValue();
+                if (destFieldValue != null && destFieldValue.isObject() && sourceFieldValue.isObject()) {
+                    mergeElement(sourceFieldValue, destFieldValue, fieldPath, strategies);
+                    continue;
+                }
+                ArrayMergeStrategy strategy = strategies.get(fieldPath);
+                if (strategy != null && sourceFieldValue.isArray() && destFieldValue != null && destFieldValue.isArray()) {
+                    sourceFieldValue = strategy.merge((ArrayNode) sourceFieldValue, (ArrayNode) destFieldValue, fieldPath, strategies);
+                }
+                ((ObjectNode) dest).replace(field.getKey(), sourceFieldValue);
+            }
+        }
+    }
+
     private class ImportConfig {
         final JsonNode locationNode;
         final boolean optional;
@@ -382,6 +722,8 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
                 optionalWrapExecuted = true;
                 try {
                     return mergeFromImportNode(sourceProvider, importer, this);
+                } catch (DWConfigLimitException e) {
+                    throw e;
                 } catch (Exception e) {
                     log.debug("Failed to read optional config {}", getImportLocation(), e);
                     return importer;
@@ -397,6 +739,114 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
         }
     }
 
+    /**
+     * counts the bytes read from a config file, failing once the per file limit is passed
+     */
+    private class LimitingInputStream extends FilterInputStream {
+        long bytesRead;
+
+        LimitingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        private void count(long read) throws LimitExceededException {
+            bytesRead += read;
+            if (bytesRead > limits.getMaxBytesPerFile()) {
+                throw new LimitExceededException("Config file larger than " + limits.getMaxBytesPerFile() + " bytes");
+            }
+        }
+    }
+
+    /**
+     * checks nesting depth, alias references and the node count of the build as tokens are streamed to the mapper and
+     * interns field names when interning is enabled
+     */
+    private class ConfigFileParser extends JsonParserDelegate {
+        int depth;
+        int aliases;
+
+        ConfigFileParser(JsonParser parser) {
+            super(parser);
+        }
+
+        @Override
+        public JsonToken nextToken() throws IOException {
+            JsonToken token = super.nextToken();
+            if (token == null) {
+                return null;
+            }
+            switch (token) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    if (++depth > limits.getMaxDepth()) {
+                        throw new LimitExceededException("Config nested deeper than " + limits.getMaxDepth() + " levels");
+                    }
+                    countNode();
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    break;
+                case FIELD_NAME:
+                    break;
+                default:
+                    countNode();
+                    if (delegate instanceof YAMLParser && ((YAMLParser) delegate).isCurrentAlias()
+                            && ++aliases > limits.getMaxAliases()) {
+                        throw new LimitExceededException("Config has more than " + limits.getMaxAliases() + " aliases");
+                    }
+            }
+            return token;
+        }
+
+        @Override
+        public String nextFieldName() throws IOException {
+            return nextToken() == JsonToken.FIELD_NAME ? getCurrentName() : null;
+        }
+
+        @Override
+        public String getCurrentName() throws IOException {
+            return interner == null ? super.getCurrentName() : interner.intern(super.getCurrentName());
+        }
+
+        private void countNode() throws LimitExceededException {
+            if (++nodesRead > limits.getMaxNodes()) {
+                throw new LimitExceededException("Config has more than " + limits.getMaxNodes() + " nodes");
+            }
+        }
+    }
+
+    static class LimitExceededException extends IOException {
+        LimitExceededException(String message) {
+            super(message);
+        }
+    }
+
     static class DWConfigFactoryException extends ConfigurationException {
         DWConfigFactoryException(String path, List<String> paths, Throwable cause) {
             super(path, buildConfigInheritanceString("", paths), cause);
@@ -414,4 +864,10 @@ public class DWConfigFactory<T> extends BaseConfigurationFactory<T> {
         }
     }
 
+    static class DWConfigLimitException extends DWConfigFactoryException {
+        DWConfigLimitException(String error, String path, List<String> paths) {
+            super(error, path, paths);
+        }
+    }
+
 }
@@ -11,6 +11,7 @@ import java.util.Collections;
 import java.util.List;
 
 import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
+import static java.util.Objects.requireNonNull;
 
 /**
  * the dropwizardConfigurationFactoryFactory
@@ -31,6 +32,10 @@ public class DWConfigFactoryFactory<T> implements ConfigurationFactoryFactory<T>
      * {@value}
      */
     public static final String DEFAULT_IMPORT_KEY = "import";
+    /**
+     * {@value}
+     */
+    public static final String DEFAULT_ARRAY_MERGE_KEY = "arrayMerge";
     /**
      * {@value}
      */
@@ -42,6 +47,7 @@ public class DWConfigFactoryFactory<T> implements ConfigurationFactoryFactory<T>
     private final File externalConfig;
     private final List<DeserializationFeature> enableFeatures;
     private final List<DeserializationFeature> disableFeatures;
+    private final ConfigOptions options;
 
     /**
      * A factory that creates {@link DWConfigFactory} with default parentKey, importKey and propertyOverridePrefix, no
@@ -90,12 +96,32 @@ public class DWConfigFactoryFactory<T> implements ConfigurationFactoryFactory<T>
     public DWConfigFactoryFactory(String parentKey, String importKey, String propertyOverridePrefix, File externalConfig,
                                   List<DeserializationFeature> enableFeatures,
                                   List<DeserializationFeature> disableFeatures) {
+        this(parentKey, importKey, propertyOverridePrefix, externalConfig, enableFeatures, disableFeatures, ConfigOptions.DEFAULT);
+    }
+
+    /**
+     * A factory that creates {@link DWConfigFactory} with an optional external configuration file, {@link DeserializationFeature}s
+     * to enable and disable on the {@link ObjectMapper} and options shared by every configuration created
+     *
+     * @param parentKey the key in the yaml document to identify a parent configuration
+     * @param importKey the key in the yaml document to identify configurations to import. When null, imports are disabled.
+     * @param propertyOverridePrefix the string prefix for system properties to identify them as configuration overrides
+     * @param externalConfig a file which if present provides overriding configuration (YAML)
+     * @param enableFeatures a list of deserializationFeatures to enable on the objectMapper
+     * @param disableFeatures a list of deserializationFeatures to disable on the objectMapper
+     * @param options the resource limits, interner, secret resolver and array merge key, see {@link ConfigOptions}
+     */
+    public DWConfigFactoryFactory(String parentKey, String importKey, String propertyOverridePrefix, File externalConfig,
+                                  List<DeserializationFeature> enableFeatures,
+                                  List<DeserializationFeature> disableFeatures,
+                                  ConfigOptions options) {
         this.parentKey = parentKey;
         this.importKey = importKey;
         this.propertyOverridePrefix = propertyOverridePrefix;
         this.externalConfig = externalConfig;
         this.enableFeatures = enableFeatures;
         this.disableFeatures = disableFeatures;
+        this.options = requireNonNull(options);
     }
 
     /**
@@ -118,7 +144,8 @@ public class DWConfigFactoryFactory<T> implements ConfigurationFactoryFactory<T>
             propertyOverridePrefix,
             parentKey,
             importKey,
-            externalConfig);
+            externalConfig,
+            options);
     }
 
     private ObjectMapper configureObjectMapper(ObjectMapper objectMapper) {
@@ -0,0 +1,206 @@
+package com.energizedwork.justConf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.SubtypeResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.StdSubtypeResolver;
+import io.dropwizard.jackson.Discoverable;
+import io.dropwizard.jackson.Jackson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * a per classloader cache of the {@link Discoverable} subtypes registered in {@code META-INF/services}
+ *
+ * <p>
+ * Creating an objectMapper with {@link Jackson#newObjectMapper()} scans the classpath for discoverable subtypes every
+ * time. Mappers created here are copied from a single template with the subtypes resolved once per classloader.
+ * </p>
+ *
+ * <p>
+ * The cache only holds weak references to the classloaders it has resolved and to their subtypes, so a discarded
+ * webapp or plugin classloader can still be collected. Call {@link #invalidate(ClassLoader)} when the services of a
+ * classloader change.
+ * </p>
+ *
+ * <p>
+ * Unlike {@link Jackson#newObjectMapper()}, which discovers subtypes with Dropwizard's own classloader,
+ * {@link #newObjectMapper()} uses the thread context classloader, so the subtypes of the application calling it are
+ * found when Dropwizard is loaded by a parent classloader.
+ * </p>
+ */
+public final class DiscoverableSubtypes {
+
+    private static final Logger log = LoggerFactory.getLogger(DiscoverableSubtypes.class);
+    private static final String SERVICES_LOCATION = "META-INF/services/";
+    // the subtypes are weak too, they would otherwise keep the classloader that defined them (the key) reachable
+    private static final Map<ClassLoader, List<WeakReference<Class<?>>>> SUBTYPES = new WeakHashMap<>();
+
+    /**
+     * create an objectMapper configured as {@link Jackson#newObjectMapper()} with the discoverable subtypes of the
+     * thread context classloader
+     *
+     * @return a new objectMapper
+     */
+    public static ObjectMapper newObjectMapper() {
+        return newObjectMapper(defaultClassLoader());
+    }
+
+    /**
+     * create an objectMapper configured as {@link Jackson#newObjectMapper()} with the discoverable subtypes of the
+     * classloader
+     *
+     * @param classLoader the classloader used to discover subtypes
+     * @return a new objectMapper
+     */
+    public static ObjectMapper newObjectMapper(ClassLoader classLoader) {
+        ObjectMapper mapper = TemplateHolder.TEMPLATE.copy();
+        mapper.setSubtypeResolver(newSubtypeResolver(classLoader));
+        return mapper;
+    }
+
+    /**
+     * create a subtypeResolver with the discoverable subtypes of the classloader registered
+     *
+     * <p>
+     * A new resolver is returned each time so subtypes registered on one objectMapper do not leak into another
+     * </p>
+     *
+     * @param classLoader the classloader used to discover subtypes
+     * @return a new subtypeResolver
+     */
+    public static SubtypeResolver newSubtypeResolver(ClassLoader classLoader) {
+        StdSubtypeResolver resolver = new StdSubtypeResolver();
+        List<Class<?>> subtypes = getDiscoveredSubtypes(classLoader);
+        resolver.registerSubtypes(subtypes.toArray(new Class<?>[subtypes.size()]));
+        return resolver;
+    }
+
+    /**
+     * @param classLoader the classloader used to discover subtypes
+     * @return the discoverable subtypes visible to the classloader, resolved on first use
+     */
+    public static List<Class<?>> getDiscoveredSubtypes(ClassLoader classLoader) {
+        Objects.requireNonNull(classLoader);
+        synchronized (SUBTYPES) {
+            List<Class<?>> subtypes = dereference(SUBTYPES.get(classLoader));
+            if (subtypes == null) {
+                subtypes = discoverSubtypes(classLoader);
+                List<WeakReference<Class<?>>> references = new ArrayList<>(subtypes.size());
+                subtypes.forEach(subtype -> references.add(new WeakReference<>(subtype)));
+                SUBTYPES.put(classLoader, references);
+            }
+            return subtypes;
+        }
+    }
+
+    /**
+     * discard the cached subtypes of a classloader, they will be resolved again when next required
+     *
+     * @param classLoader the classloader to forget
+     */
+    public static void invalidate(ClassLoader classLoader) {
+        synchronized (SUBTYPES) {
+            SUBTYPES.remove(classLoader);
+        }
+    }
+
+    /**
+     * discard the cached subtypes of all classloaders
+     */
+    public static void invalidateAll() {
+        synchronized (SUBTYPES) {
+            SUBTYPES.clear();
+        }
+    }
+
+    /**
+     * @return the subtypes, or null when they are not cached or one has been collected
+     */
+    private static List<Class<?>> dereference(List<WeakReference<Class<?>>> references) {
+        if (references == null) {
+            return null;
+        }
+        List<Class<?>> subtypes = new ArrayList<>(references.size());
+        for (WeakReference<Class<?>> reference : references) {
+            Class<?> subtype = reference.get();
+            if (subtype == null) {
+                return null;
+            }
+            subtypes.add(subtype);
+        }
+        return Collections.unmodifiableList(subtypes);
+    }
+
+    private static List<Class<?>> discoverSubtypes(ClassLoader classLoader) {
+        List<Class<?>> subtypes = new ArrayList<>();
+        for (Class<?> klass : discoverServices(classLoader, Discoverable.class)) {
+            subtypes.addAll(discoverServices(classLoader, klass));
+        }
+        log.debug("Discovered {} subtypes", subtypes.size());
+        return Collections.unmodifiableList(subtypes);
+    }
+
+    private static List<Class<?>> discoverServices(ClassLoader classLoader, Class<?> klass) {
+        List<Class<?>> services = new ArrayList<>();
+        Enumeration<URL> resources;
+        try {
+            resources = classLoader.getResources(SERVICES_LOCATION + klass.getName());
+        } catch (IOException e) {
+            log.warn("Unable to load services for {}", klass, e);
+            return services;
+        }
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            try (InputStream in = url.openStream();
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Class<?> service = loadClass(classLoader, line.trim());
+                    if (service != null) {
+                        services.add(service);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Unable to load {}", url, e);
+            }
+        }
+        return services;
+    }
+
+    private static Class<?> loadClass(ClassLoader classLoader, String className) {
+        if (className.isEmpty() || className.startsWith("#")) {
+            return null;
+        }
+        try {
+            return classLoader.loadClass(className);
+        } catch (ClassNotFoundException | NoClassDefFoundError e) {
+            log.info("Unable to load {}", className);
+            return null;
+        }
+    }
+
+    private static ClassLoader defaultClassLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : DiscoverableSubtypes.class.getClassLoader();
+    }
+
+    /**
+     * lazily created so the dropwizard mapper (and its own subtype scan) is only built once
+     */
+    private static class TemplateHolder {
+        static final ObjectMapper TEMPLATE = Jackson.newObjectMapper();
+    }
+
+    private DiscoverableSubtypes() {}
+
+}
@@ -0,0 +1,79 @@
+package com.energizedwork.justConf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * a secretResolver that reads secrets from files in a directory, intended for tests and local development
+ *
+ * <p>
+ * The path of a reference is the file relative to the directory. A reference without a key resolves to the trimmed
+ * content of the file, a reference with a key to the value of that field in the file, which may be in any
+ * {@link ConfigFormat}. Files outside the directory are never read.
+ * </p>
+ */
+public class FileSecretResolver implements SecretResolver {
+
+    private final File directory;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * @param directory the directory containing the secret files
+     */
+    public FileSecretResolver(File directory) {
+        this.directory = directory.getAbsoluteFile();
+    }
+
+    @Override
+    public Map<SecretReference, String> resolve(Set<SecretReference> references) throws IOException {
+        Map<String, List<SecretReference>> byPath = new HashMap<>();
+        references.forEach(reference -> byPath.computeIfAbsent(reference.getPath(), path -> new ArrayList<>()).add(reference));
+        Map<SecretReference, String> resolved = new HashMap<>(references.size() * 2);
+        for (Map.Entry<String, List<SecretReference>> secret : byPath.entrySet()) {
+            File file = secretFile(secret.getKey());
+            if (file == null) {
+                continue;
+            }
+            JsonNode fields = null;
+            for (SecretReference reference : secret.getValue()) {
+                if (reference.getKey() == null) {
+                    resolved.put(reference, new String(Files.readAllBytes(file.toPath()), UTF_8).trim());
+                    continue;
+                }
+                if (fields == null) {
+                    fields = readFields(file);
+                }
+                JsonNode value = fields.get(reference.getKey());
+                if (value != null && !value.isNull()) {
+                    resolved.put(reference, value.isValueNode() ? value.asText() : value.toString());
+                }
+            }
+        }
+        return resolved;
+    }
+
+    private File secretFile(String path) throws IOException {
+        File file = new File(directory, path).getCanonicalFile();
+        if (!file.toPath().startsWith(directory.getCanonicalFile().toPath()) || !file.isFile()) {
+            return null;
+        }
+        return file;
+    }
+
+    private JsonNode readFields(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            JsonNode fields = mapper.readTree(ConfigFormat.createParser(file.getName(), in));
+            return fields != null ? fields : mapper.createObjectNode();
+        }
+    }
+
+}
@@ -4,15 +4,24 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
 import io.dropwizard.configuration.*;
+import org.apache.commons.lang3.text.StrSubstitutor;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collections;
 
 import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_IMPORT_KEY;
 import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_PARENT_KEY;
 import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_PROPERTY_OVERRIDE_PREFIX;
-import static io.dropwizard.jackson.Jackson.newObjectMapper;
+import static com.energizedwork.justConf.DiscoverableSubtypes.newObjectMapper;
+import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
 import static io.dropwizard.jersey.validation.Validators.newValidatorFactory;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * utility methods for standalone configuration and bootstrap helpers
@@ -27,13 +36,35 @@ public class JFConfig {
      * wrap a configurationSourceProvider with a substitutingSourceProvider for environment variable replacement using the
      * environmentVariableSubstitutor based on the apache commons StrSubstitutor
      *
+     * <p>
+     * Binary configurations (identified by their {@link ConfigFormat} extension or mark) are read without substitution
+     * </p>
+     *
      * @param sourceProvider the configuration sourceProvider to wrap
      * @return a sourcePorvider that will replace environment variables
      */
     public static ConfigurationSourceProvider envVarSubstitution(ConfigurationSourceProvider sourceProvider) {
-        return new SubstitutingSourceProvider(
+        return envVarSubstitution(sourceProvider, ConfigLimits.UNLIMITED);
+    }
+
+    /**
+     * wrap a configurationSourceProvider for environment variable replacement, reading at most
+     * {@link ConfigLimits#getMaxBytesPerFile()} bytes of each text configuration into memory
+     *
+     * <p>
+     * Text configurations are read whole before they are substituted, pass the limits given to the factory so a file
+     * over the byte limit fails before it is buffered
+     * </p>
+     *
+     * @param sourceProvider the configuration sourceProvider to wrap
+     * @param limits the resource limits of the factory reading the configurations
+     * @return a sourceProvider that will replace environment variables
+     */
+    public static ConfigurationSourceProvider envVarSubstitution(ConfigurationSourceProvider sourceProvider, ConfigLimits limits) {
+        return new TextSubstitutingSourceProvider(
                 sourceProvider,
-                new EnvironmentVariableSubstitutor(false)
+                new EnvironmentVariableSubstitutor(false),
+                limits.getMaxBytesPerFile()
         );
     }
 
@@ -175,9 +206,27 @@ public class JFConfig {
      * @return a configuration object
      */
     public static <C> C fromSourceProvider(ConfigurationSourceProvider sourceProvider, Class<C> configClass, String configLocation, String parentKey, String importKey, File externalConfigFile, String propertyOverridePrefix) {
+        return fromSourceProvider(sourceProvider, configClass, configLocation, parentKey, importKey, externalConfigFile, propertyOverridePrefix, null);
+    }
+
+    /**
+     * create a configuration without using any defaults, resolving secret references
+     *
+     * @param sourceProvider the source provider used to retrieve the configuration from the configLocation
+     * @param configClass the class of the object to create and configure
+     * @param configLocation the location of the configuration (which will be understood by the configurationSourceProvider)
+     * @param parentKey the key in the yaml document to identify a parent configuration
+     * @param importKey the key in the yaml document to identify configurations to import. When null, imports are disabled.
+     * @param externalConfigFile an optional external configuration file for overrides
+     * @param propertyOverridePrefix prefix for system property overrides (do not include the trailing dot)
+     * @param secretResolver an optional resolver for the {@link SecretReference}s in the configuration
+     * @param <C> the class of the object to create and configure
+     * @return a configuration object
+     */
+    public static <C> C fromSourceProvider(ConfigurationSourceProvider sourceProvider, Class<C> configClass, String configLocation, String parentKey, String importKey, File externalConfigFile, String propertyOverridePrefix, SecretResolver secretResolver) {
         slf4j();
         try {
-            DWConfigFactoryFactory<C> factoryFactory = new DWConfigFactoryFactory<C>(parentKey, importKey, propertyOverridePrefix, externalConfigFile);
+            DWConfigFactoryFactory<C> factoryFactory = createFactoryFactory(parentKey, importKey, propertyOverridePrefix, externalConfigFile, secretResolver);
             ConfigurationFactory<C> factory = factoryFactory.create(configClass, newValidatorFactory().getValidator(), newObjectMapper(), "IGNORED");
             return factory.build(sourceProvider, configLocation);
         } catch (Exception e) {
@@ -252,13 +301,33 @@ public class JFConfig {
      * @param importKey the key in the yaml document to identify configurations to import. When null, imports are disabled.
      * @param externalConfigFile an optional external configuration file for overrides
      */
-    @SuppressWarnings("unchecked")
     public static void printConfigTree(OutputStream out, ConfigurationSourceProvider sourceProvider, String configLocation, String parentKey, String importKey, File externalConfigFile) {
+        printConfigTree(out, sourceProvider, configLocation, parentKey, importKey, externalConfigFile, null);
+    }
+
+    /**
+     * print a resolved configuration before it is mapped to a configuration object and validated
+     *
+     * <p>
+     *     Secret references are resolved, so a missing secret fails as it would when loading the configuration, but
+     *     printed as {@value DWConfigFactory#REDACTED_SECRET}
+     * </p>
+     *
+     * @param out the outputStream to write the raw config
+     * @param sourceProvider the source provider used to retrieve the configuration from the configLocation
+     * @param configLocation the location of the configuration (which will be understood by the configurationSourceProvider)
+     * @param parentKey the key in the yaml document to identify a parent configuration
+     * @param importKey the key in the yaml document to identify configurations to import. When null, imports are disabled.
+     * @param externalConfigFile an optional external configuration file for overrides
+     * @param secretResolver an optional resolver for the {@link SecretReference}s in the configuration
+     */
+    @SuppressWarnings("unchecked")
+    public static void printConfigTree(OutputStream out, ConfigurationSourceProvider sourceProvider, String configLocation, String parentKey, String importKey, File externalConfigFile, SecretResolver secretResolver) {
         slf4j();
         try {
-            DWConfigFactoryFactory<Object> factoryFactory = new DWConfigFactoryFactory<Object>(parentKey, importKey, "N/A", externalConfigFile);
+            DWConfigFactoryFactory<Object> factoryFactory = createFactoryFactory(parentKey, importKey, "N/A", externalConfigFile, secretResolver);
             DWConfigFactory factory = (DWConfigFactory) factoryFactory.create(Object.class, newValidatorFactory().getValidator(), newObjectMapper(), "N/A");
-            createYamlObjectMapper().writerWithDefaultPrettyPrinter().writeValue(out, factory.buildTree(sourceProvider, configLocation));
+            createYamlObjectMapper().writerWithDefaultPrettyPrinter().writeValue(out, factory.buildTree(sourceProvider, configLocation, true));
         } catch (Exception e) {
             throw new JFConfigException(e);
         }
@@ -274,11 +343,60 @@ public class JFConfig {
         }
     }
 
+    private static <C> DWConfigFactoryFactory<C> createFactoryFactory(String parentKey, String importKey, String propertyOverridePrefix, File externalConfigFile, SecretResolver secretResolver) {
+        return new DWConfigFactoryFactory<C>(parentKey, importKey, propertyOverridePrefix, externalConfigFile,
+                Collections.singletonList(FAIL_ON_UNKNOWN_PROPERTIES), Collections.emptyList(), ConfigOptions.DEFAULT.withSecretResolver(secretResolver));
+    }
+
     private static ObjectMapper createYamlObjectMapper() {
         YAMLFactory factory = new YAMLFactory().enable(YAMLGenerator.Feature.MINIMIZE_QUOTES);
         return new ObjectMapper(factory);
     }
 
+    /**
+     * substitutes text configurations only, binary content would be corrupted by the string substitution. Text is
+     * buffered up to the byte limit, binary content is streamed and counted by the factory.
+     */
+    private static class TextSubstitutingSourceProvider implements ConfigurationSourceProvider {
+        private final ConfigurationSourceProvider delegate;
+        private final StrSubstitutor substitutor;
+        private final long maxBytes;
+
+        TextSubstitutingSourceProvider(ConfigurationSourceProvider delegate, StrSubstitutor substitutor, long maxBytes) {
+            this.delegate = delegate;
+            this.substitutor = substitutor;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public InputStream open(String path) throws IOException {
+            InputStream in = delegate.open(path);
+            if (in == null) {
+                // the classpath source provider returns null for missing resources
+                throw new FileNotFoundException(path);
+            }
+            InputStream content = ConfigFormat.detect(path, in);
+            ConfigFormat format = ConfigFormat.forSource(path, content);
+            if (format != null && format.isBinary()) {
+                return content;
+            }
+            try (InputStream text = content) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = text.read(buffer)) != -1) {
+                    if (out.size() + (long) read > maxBytes) {
+                        throw new DWConfigFactory.LimitExceededException("Config file larger than " + maxBytes + " bytes");
+                    }
+                    out.write(buffer, 0, read);
+                }
+                String substituted = substitutor.replace(new String(out.toByteArray(), UTF_8));
+                InputStream substitutedContent = new ByteArrayInputStream(substituted.getBytes(UTF_8));
+                return format != null ? format.mark(substitutedContent) : substitutedContent;
+            }
+        }
+    }
+
     private JFConfig() {}
 
 }
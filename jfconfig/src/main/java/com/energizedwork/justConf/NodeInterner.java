@@ -0,0 +1,123 @@
+package com.energizedwork.justConf;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NumericNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * a bounded intern table for the field names and scalar values of configuration trees
+ *
+ * <p>
+ * Share a single instance between every {@link DWConfigFactory} (via the {@link DWConfigFactoryFactory}) that loads
+ * similar configurations to deduplicate the repeated keys and values held by the resolved trees, and the strings of the
+ * objects bound from them. Once the table holds {@code maxEntries} values, new values are no longer interned but
+ * values already in the table are still shared.
+ * </p>
+ *
+ * <p>
+ * Only immutable nodes are interned. Object and array nodes are mutated while merging and when applying system property
+ * overrides so are never shared between trees.
+ * </p>
+ */
+public class NodeInterner {
+
+    private final int maxEntries;
+    private final ConcurrentMap<Object, Object> table;
+    private final JsonNodeFactory nodeFactory = new InterningNodeFactory();
+
+    /**
+     * @param maxEntries the maximum number of distinct field names and values held by the table
+     */
+    public NodeInterner(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be greater than zero");
+        }
+        this.maxEntries = maxEntries;
+        this.table = new ConcurrentHashMap<>(Math.min(maxEntries, 1024));
+    }
+
+    /**
+     * @param value a field name or immutable node
+     * @param <V> the type of value
+     * @return the interned instance equal to the value, or the value itself when the table is full
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V intern(V value) {
+        if (value == null) {
+            return null;
+        }
+        Object interned = table.get(value);
+        if (interned != null) {
+            return (V) interned;
+        }
+        if (table.size() >= maxEntries) {
+            return value;
+        }
+        interned = table.putIfAbsent(value, value);
+        return interned != null ? (V) interned : value;
+    }
+
+    /**
+     * @return the number of distinct values in the table
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * @return the maximum number of distinct values held by the table
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * remove all values from the table, trees already built keep their (shared) values
+     */
+    public void clear() {
+        table.clear();
+    }
+
+    JsonNodeFactory getNodeFactory() {
+        return nodeFactory;
+    }
+
+    private class InterningNodeFactory extends JsonNodeFactory {
+
+        @Override
+        public TextNode textNode(String text) {
+            return intern(super.textNode(text));
+        }
+
+        @Override
+        public NumericNode numberNode(int v) {
+            return intern(super.numberNode(v));
+        }
+
+        @Override
+        public NumericNode numberNode(long v) {
+            return intern(super.numberNode(v));
+        }
+
+        @Override
+        public NumericNode numberNode(BigInteger v) {
+            return intern(super.numberNode(v));
+        }
+
+        @Override
+        public NumericNode numberNode(double v) {
+            return intern(super.numberNode(v));
+        }
+
+        @Override
+        public NumericNode numberNode(BigDecimal v) {
+            return intern(super.numberNode(v));
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.energizedwork.justConf;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * a reference to a secret in a configuration value, written as {@code $[secret:path#key]} or {@code $[secret:path]}
+ *
+ * <p>
+ * The path identifies the secret in the backend of a {@link SecretResolver} and the optional key a single value of a
+ * secret holding several (e.g. the password of a database credential). References may be the whole of a value or
+ * embedded in it, e.g. {@code jdbc:postgresql://db/app?password=$[secret:db/app#password]}
+ * </p>
+ *
+ * <p>
+ * References are resolved after environment variable substitution so they must not be written in the {@code ${...}}
+ * syntax of the substitutor, a strict {@code EnvironmentVariableSubstitutor} would fail on the undefined variable. A
+ * path or key cannot contain {@code ]} and a path cannot contain {@code #}.
+ * </p>
+ */
+public final class SecretReference {
+
+    /**
+     * {@value}
+     */
+    public static final String PREFIX = "$[secret:";
+
+    /**
+     * {@value}
+     */
+    public static final String SUFFIX = "]";
+
+    private static final Pattern REFERENCE = Pattern.compile("\\$\\[secret:([^#\\]]+)(?:#([^\\]]+))?]");
+
+    private final String path;
+    private final String key;
+
+    /**
+     * @param path the path of the secret
+     * @param key the key of the value within the secret, or null for the whole secret
+     */
+    public SecretReference(String path, String key) {
+        this.path = Objects.requireNonNull(path);
+        this.key = key;
+    }
+
+    /**
+     * @return the path of the secret
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return the key of the value within the secret, or null for the whole secret
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * add every reference in a configuration value to the references provided
+     *
+     * @param value a configuration value
+     * @param references the collection to add the references to
+     */
+    public static void findAll(String value, Collection<SecretReference> references) {
+        if (!value.contains(PREFIX)) {
+            return;
+        }
+        Matcher matcher = REFERENCE.matcher(value);
+        while (matcher.find()) {
+            references.add(new SecretReference(matcher.group(1), matcher.group(2)));
+        }
+    }
+
+    /**
+     * @param value a configuration value
+     * @param replacement the replacement for each reference
+     * @return the value with every reference replaced
+     */
+    public static String replaceAll(String value, Function<SecretReference, String> replacement) {
+        if (!value.contains(PREFIX)) {
+            return value;
+        }
+        Matcher matcher = REFERENCE.matcher(value);
+        StringBuffer sb = new StringBuffer(value.length());
+        while (matcher.find()) {
+            String secret = replacement.apply(new SecretReference(matcher.group(1), matcher.group(2)));
+            matcher.appendReplacement(sb, Matcher.quoteReplacement(secret));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SecretReference)) {
+            return false;
+        }
+        SecretReference that = (SecretReference) o;
+        return path.equals(that.path) && Objects.equals(key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * path.hashCode() + Objects.hashCode(key);
+    }
+
+    @Override
+    public String toString() {
+        return PREFIX + path + (key != null ? "#" + key : "") + SUFFIX;
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.energizedwork.justConf;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * resolves the {@link SecretReference}s in a configuration tree
+ *
+ * <p>
+ * {@link DWConfigFactory} collects every reference in the resolved tree and resolves them with a single call, wrap a
+ * resolver for a remote backend in a {@link CachingSecretResolver} to batch the lookups, make them concurrently and cache
+ * the values between builds.
+ * </p>
+ */
+public interface SecretResolver {
+
+    /**
+     * @param references the references to resolve
+     * @return the value of each reference, references that cannot be found are left out
+     * @throws IOException when the backend cannot be read
+     */
+    Map<SecretReference, String> resolve(Set<SecretReference> references) throws IOException;
+
+}
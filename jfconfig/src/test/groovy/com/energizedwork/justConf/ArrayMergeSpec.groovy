@@ -0,0 +1,115 @@
+package com.energizedwork.justConf
+
+import com.fasterxml.jackson.databind.node.ArrayNode
+import com.fasterxml.jackson.databind.node.JsonNodeFactory
+import com.fasterxml.jackson.databind.node.ObjectNode
+import com.fasterxml.jackson.dataformat.smile.SmileFactory
+import com.fasterxml.jackson.databind.ObjectMapper
+import io.dropwizard.configuration.ConfigurationException
+import io.dropwizard.configuration.FileConfigurationSourceProvider
+import io.dropwizard.configuration.ResourceConfigurationSourceProvider
+import spock.lang.Requires
+import spock.lang.Specification
+
+import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_ARRAY_MERGE_KEY
+import static com.energizedwork.justConf.testSupport.ConfigTrees.buildTree
+import static com.energizedwork.justConf.testSupport.ConfigTrees.time
+
+class ArrayMergeSpec extends Specification {
+
+    def "arrays are merged with the strategies declared by the child"() {
+        when:
+        ObjectNode config = buildTree(new ResourceConfigurationSourceProvider(), 'config/arrayMerge/child.yml')
+
+        then:
+        config.get('routes')*.get('name')*.asText() == ['users', 'orders', 'billing']
+        config.get('routes').get(1).get('path').asText() == '/orders'
+        config.get('routes').get(1).get('timeout').asInt() == 5000
+        config.get('routes').get(1).get('tags')*.asText() == ['read', 'write']
+        config.get('hosts')*.asText() == ['a', 'b', 'c']
+        config.get('filters')*.asText() == ['cors', 'auth', 'gzip']
+        config.get('replaced')*.asText() == ['z']
+        !config.has(DEFAULT_ARRAY_MERGE_KEY)
+    }
+
+    def "arrays are merged with the strategies declared by the importer"() {
+        when:
+        ObjectNode config = buildTree(new ResourceConfigurationSourceProvider(), 'config/arrayMerge/import-append.yml')
+
+        then:
+        config.get('hosts')*.asText() == ['a', 'b', 'c']
+        !config.has(DEFAULT_ARRAY_MERGE_KEY)
+    }
+
+    def "a child declaration overrides the declaration of its parent for the same path"() {
+        when:
+        ObjectNode config = buildTree(new ResourceConfigurationSourceProvider(), 'config/arrayMerge/replace-keyed-parent.yml')
+
+        then:
+        config.get('routes')*.get('name')*.asText() == ['z']
+    }
+
+    def "a parent declaration applies when a child is merged over it"() {
+        when:
+        ObjectNode config = buildTree(new ResourceConfigurationSourceProvider(), 'config/arrayMerge/inherit-declaration.yml')
+
+        then:
+        config.get('routes')*.get('name')*.asText() == ['a', 'b', 'c']
+        config.get('routes')*.get('version')*.asInt() == [2, 3, 3]
+    }
+
+    def "strategies are declared under the configured key"() {
+        when:
+        ObjectNode config = buildTree(new ResourceConfigurationSourceProvider(), 'config/arrayMerge/custom-key.yml', 'import',
+                ConfigOptions.DEFAULT.withArrayMergeKey('mergeArrays'))
+
+        then:
+        config.get('hosts')*.asText() == ['a', 'b', 'c']
+        !config.has('mergeArrays')
+    }
+
+    def "fails on an unknown strategy naming the file that declared it"() {
+        when:
+        buildTree(new ResourceConfigurationSourceProvider(), 'config/arrayMerge/invalid-strategy-child.yml')
+
+        then:
+        ConfigurationException e = thrown()
+        e.message.startsWith('config/arrayMerge/invalid-strategy.yml has an error')
+        e.message.contains('Invalid array merge strategy')
+        e.message.contains('config/arrayMerge/invalid-strategy-child.yml -> config/arrayMerge/invalid-strategy.yml')
+    }
+
+    @Requires({ System.getProperty('jfconfig.benchmark') })
+    def "benchmark merging large keyed arrays"() {
+        given:
+        File dir = File.createTempDir()
+        ObjectMapper smile = new ObjectMapper(new SmileFactory())
+        smile.writeValue(new File(dir, 'parent.smile'), routes(0, 50000))
+        ObjectNode child = routes(25000, 50000)
+        child.put('inherits', "${dir}/parent.smile".toString())
+        child.putObject(DEFAULT_ARRAY_MERGE_KEY).putObject('routes').put('key', 'name')
+        smile.writeValue(new File(dir, 'child.smile'), child)
+        FileConfigurationSourceProvider provider = new FileConfigurationSourceProvider()
+
+        when:
+        int size = buildTree(provider, "${dir}/child.smile").get('routes').size()
+        long millis = time(10) { buildTree(provider, "${dir}/child.smile") }
+        println "merged 50000 keyed routes over 50000 in ${millis} ms per build"
+
+        then:
+        size == 75000
+
+        cleanup:
+        dir.deleteDir()
+    }
+
+    static ObjectNode routes(int from, int count) {
+        ObjectNode root = JsonNodeFactory.instance.objectNode()
+        ArrayNode routes = root.putArray('routes')
+        (from..<from + count).each {
+            routes.addObject().put('name', "route${it}").put('path', "/api/v1/resource${it}").put('timeout', 1000 + from)
+        }
+        root
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.energizedwork.justConf
+
+import com.energizedwork.justConf.testSupport.BoringConfigObject
+import com.energizedwork.justConf.testSupport.ConfigTrees
+import com.energizedwork.justConf.testSupport.SimpleConfigObject
+import io.dropwizard.configuration.ResourceConfigurationSourceProvider
+import spock.lang.Specification
+
+class ConfigBundleSpec extends Specification {
+
+    ResourceConfigurationSourceProvider classpath = new ResourceConfigurationSourceProvider()
+    File bundleFile
+
+    void setup() {
+        bundleFile = File.createTempFile('config', '.bundle')
+    }
+
+    void cleanup() {
+        bundleFile.delete()
+    }
+
+    def "packs the entry config and everything it inherits and imports"() {
+        when:
+        Set<String> packed = new ConfigBundle(classpath, 'inherits', 'imports').pack('config/precedence/configA.yml', bundleFile)
+        BundleConfigurationSourceProvider bundle = new BundleConfigurationSourceProvider(bundleFile)
+
+        then:
+        packed == ['A', 'B', 'C', 'D', 'E', 'F', 'X', 'Y', 'Z', 'ZZ', 'G', 'H', 'I'].collect { "config/precedence/config${it}.yml".toString() } as Set
+        bundle.locations == packed
+        bundle.entryLocation == 'config/precedence/configA.yml'
+        bundle.open('config/precedence/configI.yml').text == classpath.open('config/precedence/configI.yml').text
+    }
+
+    def "a config loaded from a bundle is the same as from its sources"() {
+        given:
+        new ConfigBundle(classpath, 'inherits', 'imports').pack('config/precedence/configA.yml', bundleFile)
+
+        when:
+        BoringConfigObject config = JFConfig.fromSourceProvider(new BundleConfigurationSourceProvider(bundleFile), BoringConfigObject,
+                'config/precedence/configA.yml', 'inherits', 'imports', null, 'xx')
+
+        then:
+        config.property9 == 'set in I'
+        config.nested1.property3 == 'set in Y'
+        config.nested2.property2 == 'set in ZZ'
+        ConfigTrees.buildTree(new BundleConfigurationSourceProvider(bundleFile), 'config/precedence/configA.yml', 'imports') ==
+                ConfigTrees.buildTree(classpath, 'config/precedence/configA.yml', 'imports')
+    }
+
+    def "missing optional imports are left out of the bundle"() {
+        when:
+        Set<String> packed = new ConfigBundle(classpath, 'inherits', 'import').pack('config/simple/import-optional-file-missing.yml', bundleFile)
+        SimpleConfigObject config = JFConfig.fromSourceProvider(new BundleConfigurationSourceProvider(bundleFile), SimpleConfigObject,
+                'config/simple/import-optional-file-missing.yml', 'inherits', 'import', null, 'xx')
+
+        then:
+        packed == ['config/simple/import-optional-file-missing.yml'] as Set
+        config.property1 == 'value1'
+    }
+
+    def "follows the parent of a config first reached without processing its parent and imports"() {
+        when:
+        Set<String> packed = new ConfigBundle(classpath, 'inherits', 'import').pack('config/bundle/config.yml', bundleFile)
+        SimpleConfigObject config = JFConfig.fromSourceProvider(new BundleConfigurationSourceProvider(bundleFile), SimpleConfigObject,
+                'config/bundle/config.yml', 'inherits', 'import', null, 'xx')
+
+        then:
+        packed == ['config/bundle/config.yml', 'config/bundle/shared.yml', 'config/bundle/base.yml'] as Set
+        config.notNullProperty == 'value2'
+        config.notBlankProperty == 'value3'
+    }
+
+    def "fails to pack when a required config is missing"() {
+        when:
+        new ConfigBundle(classpath, 'inherits', 'import').pack('config/simple/import-missing-file.yml', bundleFile)
+
+        then:
+        thrown FileNotFoundException
+    }
+
+    def "opening a location not in the bundle fails"() {
+        given:
+        new ConfigBundle(classpath, 'inherits', 'import').pack('config/simple/all-props-present.yml', bundleFile)
+
+        when:
+        new BundleConfigurationSourceProvider(bundleFile).open('config/simple/imported.yml')
+
+        then:
+        thrown FileNotFoundException
+    }
+
+    def "rejects files that are not bundles"() {
+        given:
+        bundleFile.text = 'property1: value1'
+
+        when:
+        new BundleConfigurationSourceProvider(bundleFile)
+
+        then:
+        IOException e = thrown()
+        e.message.contains('Not a config bundle')
+    }
+
+    def "rejects bundles with entries outside the bundle"() {
+        given:
+        new ConfigBundle(classpath, 'inherits', 'import').pack('config/simple/all-props-present.yml', bundleFile)
+        byte[] bytes = bundleFile.bytes
+        int lengthAt = 8 + 2 + 'config/simple/all-props-present.yml'.length() + 4 + 2 + 'config/simple/all-props-present.yml'.length() + 8
+        bytes[lengthAt] = 0x7f
+        bundleFile.bytes = bytes
+
+        when:
+        new BundleConfigurationSourceProvider(bundleFile)
+
+        then:
+        IOException e = thrown()
+        e.message.contains('Corrupt config bundle')
+    }
+
+}
@@ -0,0 +1,137 @@
+package com.energizedwork.justConf
+
+import com.energizedwork.justConf.testSupport.SimpleConfigObject
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.node.JsonNodeFactory
+import com.fasterxml.jackson.databind.node.ObjectNode
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory
+import com.fasterxml.jackson.dataformat.smile.SmileFactory
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory
+import io.dropwizard.configuration.ConfigurationSourceProvider
+import io.dropwizard.configuration.FileConfigurationSourceProvider
+import spock.lang.Requires
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import static com.energizedwork.justConf.testSupport.ConfigTrees.buildTree
+import static com.energizedwork.justConf.testSupport.ConfigTrees.time
+
+class ConfigFormatSpec extends Specification {
+
+    File dir
+
+    void setup() {
+        dir = File.createTempDir()
+    }
+
+    void cleanup() {
+        dir.deleteDir()
+    }
+
+    @Unroll
+    def "format of #location is #format"() {
+        expect:
+        ConfigFormat.forLocation(location) == format
+
+        where:
+        location                             | format
+        'config/app.yml'                     | ConfigFormat.YAML
+        'config/app.YAML'                    | ConfigFormat.YAML
+        'config/routes.json'                 | ConfigFormat.JSON
+        'http://host/routes.json?version=2'  | ConfigFormat.JSON
+        '/etc/app/routes.smile'              | ConfigFormat.SMILE
+        '/etc/app/routes.sml'                | ConfigFormat.SMILE
+        '/etc/app/routes.cbor'               | ConfigFormat.CBOR
+        '/etc/app/routes.conf'               | null
+    }
+
+    def "yaml can inherit and import json"() {
+        when:
+        SimpleConfigObject config = JFConfig.fromClasspath(SimpleConfigObject, 'config/formats/config.yml')
+
+        then:
+        config.property1 == 'value1'
+        config.notNullProperty == 'value2'
+        config.notBlankProperty == 'value3'
+        config.notNullOrBlankProperty == 'value4'
+    }
+
+    @Unroll
+    def "can import #format with environment variable substitution"() {
+        given:
+        write(format, "imported.${extension}", [notNullProperty: 'value2', notBlankProperty: 'value3', notNullOrBlankProperty: 'value4'])
+        new File(dir, 'config.yml').text = "import: ${dir}/imported.${extension}\nproperty1: \${NOT_SET_ENV_VAR:-value1}\n"
+
+        when:
+        SimpleConfigObject config = JFConfig.fromFile(SimpleConfigObject, "${dir}/config.yml")
+
+        then:
+        config.property1 == 'value1'
+        config.notNullOrBlankProperty == 'value4'
+
+        where:
+        format             | extension
+        ConfigFormat.SMILE | 'smile'
+        ConfigFormat.CBOR  | 'cbor'
+        ConfigFormat.JSON  | 'json'
+    }
+
+    def "binary configs are detected from their content"() {
+        given:
+        write(ConfigFormat.SMILE, 'parent.bin', [notNullProperty: 'value2', notBlankProperty: 'value3', notNullOrBlankProperty: 'value4'])
+        new File(dir, 'config.yml').text = "inherits: ${dir}/parent.bin\nproperty1: \${NOT_SET_ENV_VAR:-value1}\n"
+
+        when:
+        SimpleConfigObject config = JFConfig.fromFile(SimpleConfigObject, "${dir}/config.yml")
+
+        then:
+        config.property1 == 'value1'
+        config.notNullProperty == 'value2'
+    }
+
+    @Requires({ System.getProperty('jfconfig.benchmark') })
+    def "benchmark large generated imports in each format"() {
+        given:
+        ObjectNode routes = generateRoutes(20000)
+        ConfigurationSourceProvider provider = new FileConfigurationSourceProvider()
+        Map<ConfigFormat, String> extensions = [(ConfigFormat.YAML): 'yml', (ConfigFormat.JSON): 'json', (ConfigFormat.SMILE): 'smile', (ConfigFormat.CBOR): 'cbor']
+
+        when:
+        Map<ConfigFormat, Long> millis = extensions.collectEntries { format, extension ->
+            File imported = write(format, "routes.${extension}", routes)
+            File config = new File(dir, "config-${extension}.yml")
+            config.text = "import: ${imported}\n"
+            assert buildTree(provider, config.path).get('routes').size() == 20000
+            [(format): time(10) { buildTree(provider, config.path) }]
+        }
+        millis.each { format, ms ->
+            println "${format.name().padRight(5)} ${ms.toString().padLeft(6)} ms per build (${new File(dir, "routes.${extensions[format]}").length()} bytes)"
+        }
+
+        then:
+        millis.size() == 4
+    }
+
+    File write(ConfigFormat format, String name, Object content) {
+        File file = new File(dir, name)
+        new ObjectMapper(format == ConfigFormat.YAML ? new YAMLFactory() : format.factory).writeValue(file, content)
+        file
+    }
+
+    static ObjectNode generateRoutes(int count) {
+        JsonNodeFactory factory = JsonNodeFactory.instance
+        ObjectNode root = factory.objectNode()
+        ObjectNode routes = root.putObject('routes')
+        count.times {
+            ObjectNode route = routes.putObject("route${it}")
+            route.put('path', "/api/v1/resource${it}")
+            route.put('upstream', "http://backend-${it % 50}.internal:8080")
+            route.put('timeoutMillis', 5000 + it % 7)
+            route.put('weight', (it % 100) / 100d)
+            route.put('enabled', it % 3 != 0)
+            route.putArray('methods').add('GET').add('POST')
+        }
+        root
+    }
+
+}
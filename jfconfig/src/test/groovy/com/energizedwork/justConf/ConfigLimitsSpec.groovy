@@ -0,0 +1,84 @@
+package com.energizedwork.justConf
+
+import com.energizedwork.justConf.testSupport.ConfigTrees
+import io.dropwizard.configuration.ConfigurationException
+import io.dropwizard.configuration.ConfigurationSourceProvider
+import io.dropwizard.configuration.ResourceConfigurationSourceProvider
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ConfigLimitsSpec extends Specification {
+
+    def "unlimited reads the full configuration tree"() {
+        expect:
+        buildTree(ConfigLimits.UNLIMITED, 'config/precedence/configA.yml').get('property9').asText() == 'set in I'
+    }
+
+    def "limits that are not exceeded do not fail"() {
+        given:
+        ConfigLimits limits = new ConfigLimits(1024, 100, 3, 0, 3, 13)
+
+        expect:
+        buildTree(limits, 'config/precedence/configA.yml').get('property9').asText() == 'set in I'
+        buildTree(limits, 'config/nested/single-file-all-configured.yml').get('component').get('widgetStoreFactory').get('url').asText() == 'db-url'
+    }
+
+    @Unroll
+    def "fails fast when #description"() {
+        when:
+        buildTree(limits, configPath)
+
+        then:
+        ConfigurationException e = thrown()
+        e.message.contains(errorMessageContains)
+        e.message.contains(configPath)
+        e.message.contains(fileInError)
+
+        where:
+        description                   | limits                                          | configPath                                      | fileInError                                            | errorMessageContains
+        'a file is too large'         | ConfigLimits.UNLIMITED.withMaxBytesPerFile(50)  | 'config/nested/single-file-all-configured.yml'  | 'config/nested/single-file-all-configured.yml'         | 'larger than 50 bytes'
+        'a file is nested too deeply' | ConfigLimits.UNLIMITED.withMaxDepth(2)          | 'config/nested/single-file-all-configured.yml'  | 'config/nested/single-file-all-configured.yml'         | 'deeper than 2 levels'
+        'there are too many nodes'    | ConfigLimits.UNLIMITED.withMaxNodes(20)         | 'config/precedence/configA.yml'                 | 'config/precedence/configB.yml'                        | 'more than 20 nodes'
+        'there are too many aliases'  | ConfigLimits.UNLIMITED.withMaxAliases(0)        | 'config/nested/aliases.yml'                     | 'config/nested/aliases.yml'                            | 'more than 0 aliases'
+        'there are too many imports'  | ConfigLimits.UNLIMITED.withMaxImportsPerNode(2) | 'config/precedence/configA.yml'                 | 'config/precedence/configA.yml'                        | 'Too many imports (3)'
+        'there are too many files'    | ConfigLimits.UNLIMITED.withMaxFiles(3)          | 'config/precedence/configA.yml'                 | 'config/precedence/configD.yml'                        | 'Too many config files'
+        'an optional import exceeds'  | ConfigLimits.UNLIMITED.withMaxFiles(1)          | 'config/simple/import-optional-file-exists.yml' | 'config/simple/import-optional-file-optional-file.yml' | 'Too many config files'
+    }
+
+    def "substituting environment variables buffers at most the byte limit of a file"() {
+        given:
+        long bytesRead = 0
+        ConfigurationSourceProvider endless = { String path ->
+            new InputStream() {
+                int read() {
+                    bytesRead++
+                    'a'
+                }
+            }
+        } as ConfigurationSourceProvider
+        ConfigLimits limits = ConfigLimits.UNLIMITED.withMaxBytesPerFile(1024)
+
+        when:
+        ConfigTrees.buildTree(JFConfig.envVarSubstitution(endless, limits), 'endless.yml', 'import', ConfigOptions.DEFAULT.withLimits(limits))
+
+        then:
+        ConfigurationException e = thrown()
+        e.message.contains('larger than 1024 bytes')
+        e.message.contains('endless.yml')
+        bytesRead < 1024 + 8192
+    }
+
+    def "limits must be positive"() {
+        when:
+        ConfigLimits.UNLIMITED.withMaxDepth(0)
+
+        then:
+        thrown IllegalArgumentException
+    }
+
+    def buildTree(ConfigLimits limits, String configPath) {
+        ConfigTrees.buildTree(new ResourceConfigurationSourceProvider(), configPath, configPath.contains('precedence') ? 'imports' : 'import',
+                ConfigOptions.DEFAULT.withLimits(limits))
+    }
+
+}
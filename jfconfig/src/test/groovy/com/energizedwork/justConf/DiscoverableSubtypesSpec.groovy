@@ -0,0 +1,102 @@
+package com.energizedwork.justConf
+
+import com.energizedwork.justConf.testSupport.WithObjectStore
+import com.energizedwork.justConf.testSupport.objectStore.MemoryObjectStoreFactory
+import com.energizedwork.justConf.testSupport.objectStore.S3ObjectStoreFactory
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.jsontype.NamedType
+import spock.lang.Specification
+
+import java.lang.ref.WeakReference
+import java.util.concurrent.atomic.AtomicInteger
+
+class DiscoverableSubtypesSpec extends Specification {
+
+    ClassLoader classLoader = getClass().classLoader
+
+    void cleanup() {
+        DiscoverableSubtypes.invalidateAll()
+    }
+
+    def "discovers subtypes registered in META-INF/services"() {
+        expect:
+        DiscoverableSubtypes.getDiscoveredSubtypes(classLoader).containsAll([MemoryObjectStoreFactory, S3ObjectStoreFactory])
+    }
+
+    def "subtypes are resolved once per classloader"() {
+        given:
+        AtomicInteger scans = new AtomicInteger()
+        ClassLoader counting = countingClassLoader(scans)
+        List<Class<?>> subtypes = DiscoverableSubtypes.getDiscoveredSubtypes(counting)
+        int scansToResolve = scans.get()
+
+        expect:
+        DiscoverableSubtypes.getDiscoveredSubtypes(counting) == subtypes
+        scans.get() == scansToResolve
+    }
+
+    def "invalidating a classloader resolves the subtypes again"() {
+        given:
+        AtomicInteger scans = new AtomicInteger()
+        ClassLoader counting = countingClassLoader(scans)
+        List<Class<?>> subtypes = DiscoverableSubtypes.getDiscoveredSubtypes(counting)
+        int scansToResolve = scans.get()
+
+        when:
+        DiscoverableSubtypes.invalidate(counting)
+
+        then:
+        DiscoverableSubtypes.getDiscoveredSubtypes(counting) == subtypes
+        scans.get() == scansToResolve * 2
+    }
+
+    def "discarded classloaders are not retained"() {
+        given:
+        WeakReference<ClassLoader> discarded = new WeakReference<>(resolveAndDiscard())
+
+        when:
+        long deadline = System.currentTimeMillis() + 5000
+        while (discarded.get() != null && System.currentTimeMillis() < deadline) {
+            System.gc()
+            sleep 10
+        }
+
+        then:
+        discarded.get() == null
+    }
+
+    def "mappers bind polymorphic configuration"() {
+        given:
+        ObjectMapper mapper = DiscoverableSubtypes.newObjectMapper(classLoader)
+
+        expect:
+        mapper.readValue('{"stuff": {"type": "memory"}}', WithObjectStore).stuff instanceof MemoryObjectStoreFactory
+    }
+
+    def "subtypes registered on one mapper are not seen by another"() {
+        given:
+        ObjectMapper mapper = DiscoverableSubtypes.newObjectMapper(classLoader)
+        mapper.registerSubtypes(new NamedType(Object, 'registeredOnOneMapper'))
+
+        expect:
+        !DiscoverableSubtypes.newObjectMapper(classLoader).subtypeResolver.is(mapper.subtypeResolver)
+        !DiscoverableSubtypes.getDiscoveredSubtypes(classLoader).contains(Object)
+    }
+
+    private ClassLoader resolveAndDiscard() {
+        ClassLoader child = new URLClassLoader(new URL[0], classLoader)
+        assert DiscoverableSubtypes.getDiscoveredSubtypes(child)
+        child
+    }
+
+    private ClassLoader countingClassLoader(AtomicInteger scans) {
+        new ClassLoader(classLoader) {
+            @Override
+            Enumeration<URL> getResources(String name) throws IOException {
+                scans.incrementAndGet()
+                super.getResources(name)
+            }
+        }
+    }
+
+}
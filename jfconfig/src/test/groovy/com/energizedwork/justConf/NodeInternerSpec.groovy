@@ -0,0 +1,125 @@
+package com.energizedwork.justConf
+
+import com.energizedwork.justConf.testSupport.BoringConfigObject
+import com.energizedwork.justConf.testSupport.ConfigTrees
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.node.ObjectNode
+import io.dropwizard.configuration.ConfigurationSourceProvider
+import io.dropwizard.configuration.FileConfigurationSourceProvider
+import io.dropwizard.configuration.ResourceConfigurationSourceProvider
+import spock.lang.Requires
+import spock.lang.Specification
+
+class NodeInternerSpec extends Specification {
+
+    def "equal field names and values are shared between trees"() {
+        given:
+        NodeInterner interner = new NodeInterner(1000)
+        ObjectNode tree1 = buildTree(interner, 'config/precedence/configA.yml')
+        ObjectNode tree2 = buildTree(interner, 'config/precedence/configA.yml')
+
+        expect:
+        !tree1.is(tree2)
+        tree1 == tree2
+        !tree1.get('nested1').is(tree2.get('nested1'))
+        tree1.get('property9').is(tree2.get('property9'))
+        tree1.fieldNames().next().is(tree2.fieldNames().next())
+    }
+
+    def "interning does not change the configuration"() {
+        given:
+        BoringConfigObject config = build(new NodeInterner(1000), 'config/precedence/configA.yml')
+
+        expect:
+        config.property1 == 'set in A'
+        config.nested2.property2 == 'set in ZZ'
+        buildTree(new NodeInterner(1000), 'config/precedence/configA.yml') == buildTree(null, 'config/precedence/configA.yml')
+    }
+
+    def "the intern table is bounded"() {
+        given:
+        NodeInterner interner = new NodeInterner(2)
+
+        when:
+        String a = interner.intern(new String('a'))
+        String b = interner.intern(new String('b'))
+        String c = new String('c')
+
+        then:
+        interner.intern(new String('a')).is(a)
+        interner.intern(new String('b')).is(b)
+        interner.intern(c).is(c)
+        !interner.intern(new String('c')).is(c)
+        interner.size() == 2
+    }
+
+    @Requires({ System.getProperty('jfconfig.benchmark') })
+    def "benchmark retained heap per tenant config"() {
+        given:
+        int tenants = 200
+        File dir = generateTenantConfigs(tenants)
+        FileConfigurationSourceProvider provider = new FileConfigurationSourceProvider()
+
+        when:
+        long plain = retainedHeapPerTree(tenants) { int i -> buildTree(null, "${dir}/tenant-${i}.yml", provider) }
+        NodeInterner interner = new NodeInterner(100000)
+        long interned = retainedHeapPerTree(tenants) { int i -> buildTree(interner, "${dir}/tenant-${i}.yml", provider) }
+        println "retained heap per tenant config tree: plain ${plain} bytes, interned ${interned} bytes (${interner.size()} interned values)"
+
+        then:
+        interned < plain
+
+        cleanup:
+        dir?.deleteDir()
+    }
+
+    def build(NodeInterner interner, String configPath) {
+        ConfigTrees.factory(BoringConfigObject, 'imports', ConfigOptions.DEFAULT.withInterner(interner)).build(new ResourceConfigurationSourceProvider(), configPath)
+    }
+
+    ObjectNode buildTree(NodeInterner interner, String configPath, ConfigurationSourceProvider provider = new ResourceConfigurationSourceProvider()) {
+        ConfigTrees.buildTree(provider, configPath, 'imports', ConfigOptions.DEFAULT.withInterner(interner))
+    }
+
+    static long retainedHeapPerTree(int count, Closure<JsonNode> buildTree) {
+        List<JsonNode> trees = []
+        long before = usedHeap()
+        count.times { trees << buildTree(it) }
+        long after = usedHeap()
+        assert trees.size() == count
+        (after - before) / count
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.runtime
+        3.times {
+            System.gc()
+            Thread.sleep(100)
+        }
+        runtime.totalMemory() - runtime.freeMemory()
+    }
+
+    static File generateTenantConfigs(int tenants) {
+        File dir = File.createTempDir()
+        dir.toPath().resolve('base.yml').text = routes('base', 100)
+        tenants.times {
+            dir.toPath().resolve("tenant-${it}.yml").text = "inherits: ${dir}/base.yml\ntenant: tenant-${it}\n" + routes('tenant', 100)
+        }
+        dir
+    }
+
+    static String routes(String prefix, int count) {
+        StringBuilder sb = new StringBuilder("${prefix}Routes:\n")
+        count.times {
+            sb << "  route${it}:\n"
+            sb << "    path: /api/v1/resource${it}\n"
+            sb << "    upstream: http://backend-${it % 10}.internal:8080\n"
+            sb << "    timeoutMillis: 5000\n"
+            sb << "    retries: 3\n"
+            sb << "    enabled: true\n"
+            sb << "    methods: [GET, POST]\n"
+        }
+        sb.toString()
+    }
+
+}
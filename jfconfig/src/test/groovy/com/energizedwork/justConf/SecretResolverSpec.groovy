@@ -0,0 +1,146 @@
+package com.energizedwork.justConf
+
+import com.energizedwork.justConf.testSupport.SimpleConfigObject
+import io.dropwizard.configuration.EnvironmentVariableSubstitutor
+import io.dropwizard.configuration.ResourceConfigurationSourceProvider
+import io.dropwizard.configuration.SubstitutingSourceProvider
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_IMPORT_KEY
+import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_PARENT_KEY
+
+class SecretResolverSpec extends Specification {
+
+    FileSecretResolver fileResolver = new FileSecretResolver(new File(getClass().getResource('/config/secrets/store').toURI()))
+    ExecutorService executor = Executors.newFixedThreadPool(4)
+
+    void cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "secret references are resolved from the backend"() {
+        when:
+        SimpleConfigObject config = JFConfig.fromSourceProvider(JFConfig.createEnvVarSubstitutingClasspathSourceProvider(), SimpleConfigObject,
+                'config/secrets/config.yml', DEFAULT_PARENT_KEY, DEFAULT_IMPORT_KEY, null, 'xx', fileResolver)
+
+        then:
+        config.property1 == 's3cret'
+        config.notNullProperty == 'jdbc:postgresql://db/app?user=app&password=s3cret'
+        config.notBlankProperty == 't0ken'
+        config.notNullOrBlankProperty == 'not a secret'
+    }
+
+    def "secret references are left for the resolver by strict environment variable substitution"() {
+        when:
+        SimpleConfigObject config = JFConfig.fromSourceProvider(
+                new SubstitutingSourceProvider(new ResourceConfigurationSourceProvider(), new EnvironmentVariableSubstitutor()), SimpleConfigObject,
+                'config/secrets/config.yml', DEFAULT_PARENT_KEY, DEFAULT_IMPORT_KEY, null, 'xx', fileResolver)
+
+        then:
+        config.property1 == 's3cret'
+        config.notBlankProperty == 't0ken'
+    }
+
+    def "secrets are redacted when printing the config tree"() {
+        given:
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+
+        when:
+        JFConfig.printConfigTree(out, new ResourceConfigurationSourceProvider(), 'config/secrets/config.yml', DEFAULT_PARENT_KEY, DEFAULT_IMPORT_KEY, null, fileResolver)
+        String printed = out.toString('UTF-8')
+
+        then:
+        printed.contains("property1: '${DWConfigFactory.REDACTED_SECRET}'")
+        printed.contains("user=${DWConfigFactory.REDACTED_SECRET}&password=${DWConfigFactory.REDACTED_SECRET}")
+        !printed.contains('s3cret')
+        !printed.contains('t0ken')
+    }
+
+    def "fails listing the references that cannot be resolved"() {
+        when:
+        JFConfig.fromSourceProvider(new ResourceConfigurationSourceProvider(), SimpleConfigObject,
+                'config/secrets/missing.yml', DEFAULT_PARENT_KEY, DEFAULT_IMPORT_KEY, null, 'xx', fileResolver)
+
+        then:
+        JFConfigException e = thrown()
+        e.cause.message.contains('Unresolved secret references')
+        e.cause.message.contains('$[secret:db.yml#missing]')
+        e.cause.message.contains('$[secret:../config.yml]')
+        !e.cause.message.contains('#password')
+    }
+
+    def "references are looked up in concurrent batches and cached until they expire"() {
+        given:
+        long now = 0
+        List<Set<SecretReference>> batches = Collections.synchronizedList([])
+        Set<String> threads = ConcurrentHashMap.newKeySet()
+        SecretResolver backend = { Set<SecretReference> references ->
+            batches << references
+            threads << Thread.currentThread().name
+            references.collectEntries { [(it): "value of ${it.path}".toString()] }
+        } as SecretResolver
+        CachingSecretResolver resolver = new CachingSecretResolver(backend, 10, TimeUnit.SECONDS, 3, executor, { now })
+        Set<SecretReference> references = (1..10).collect { new SecretReference("secret${it}", null) } as Set
+
+        when:
+        Map<SecretReference, String> resolved = resolver.resolve(references)
+
+        then:
+        resolved.size() == 10
+        resolved[new SecretReference('secret7', null)] == 'value of secret7'
+        batches*.size().sort() == [1, 3, 3, 3]
+        !threads.contains(Thread.currentThread().name)
+
+        when:
+        batches.clear()
+        now = TimeUnit.SECONDS.toNanos(9)
+        resolver.resolve(references + [new SecretReference('secret11', null)] as Set)
+
+        then:
+        batches == [[new SecretReference('secret11', null)] as Set]
+
+        when:
+        batches.clear()
+        now = TimeUnit.SECONDS.toNanos(11)
+        resolver.resolve([new SecretReference('secret1', null)] as Set)
+
+        then:
+        batches == [[new SecretReference('secret1', null)] as Set]
+    }
+
+    def "backend failures fail the build"() {
+        given:
+        SecretResolver backend = { throw new IOException('backend down') } as SecretResolver
+        CachingSecretResolver resolver = new CachingSecretResolver(backend, 1, TimeUnit.MINUTES, 1, 2)
+
+        when:
+        JFConfig.fromSourceProvider(new ResourceConfigurationSourceProvider(), SimpleConfigObject,
+                'config/secrets/config.yml', DEFAULT_PARENT_KEY, DEFAULT_IMPORT_KEY, null, 'xx', resolver)
+
+        then:
+        JFConfigException e = thrown()
+        e.cause.message.contains('Failed to resolve secrets')
+        e.cause.cause.message == 'backend down'
+
+        cleanup:
+        resolver.close()
+    }
+
+    def "closing the resolver only stops the threads it created"() {
+        given:
+        SecretResolver backend = { Set<SecretReference> references -> [:] } as SecretResolver
+        CachingSecretResolver provided = new CachingSecretResolver(backend, 1, TimeUnit.MINUTES, 1, executor, System.&nanoTime)
+
+        when:
+        provided.close()
+
+        then:
+        !executor.shutdown
+    }
+
+}
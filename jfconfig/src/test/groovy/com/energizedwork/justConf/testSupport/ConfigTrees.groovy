@@ -0,0 +1,45 @@
+package com.energizedwork.justConf.testSupport
+
+import com.energizedwork.justConf.ConfigOptions
+import com.energizedwork.justConf.DWConfigFactory
+import com.energizedwork.justConf.DWConfigFactoryFactory
+import com.energizedwork.justConf.DiscoverableSubtypes
+import com.fasterxml.jackson.databind.node.ObjectNode
+import io.dropwizard.configuration.ConfigurationSourceProvider
+
+import javax.validation.Validator
+
+import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_IMPORT_KEY
+import static com.energizedwork.justConf.DWConfigFactoryFactory.DEFAULT_PARENT_KEY
+import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES
+import static io.dropwizard.jersey.validation.Validators.newValidatorFactory
+
+/**
+ * builds config trees the way dropwizard creates the factory, for specs that check the tree before it is bound
+ */
+class ConfigTrees {
+
+    static final Validator VALIDATOR = newValidatorFactory().validator
+
+    static <T> DWConfigFactory<T> factory(Class<T> klass, String importKey = DEFAULT_IMPORT_KEY, ConfigOptions options = ConfigOptions.DEFAULT) {
+        DWConfigFactoryFactory<T> factoryFactory = new DWConfigFactoryFactory<T>(DEFAULT_PARENT_KEY, importKey, 'xx', null,
+                [FAIL_ON_UNKNOWN_PROPERTIES], [], options)
+        (DWConfigFactory<T>) factoryFactory.create(klass, VALIDATOR, DiscoverableSubtypes.newObjectMapper(), 'xx')
+    }
+
+    static ObjectNode buildTree(ConfigurationSourceProvider provider, String path, String importKey = DEFAULT_IMPORT_KEY,
+                                ConfigOptions options = ConfigOptions.DEFAULT) {
+        factory(Object, importKey, options).buildTree(provider, path)
+    }
+
+    /**
+     * @return the mean milliseconds per call of the closure, after one call to warm up
+     */
+    static long time(int iterations, Closure closure) {
+        closure()
+        long start = System.nanoTime()
+        iterations.times { closure() }
+        (System.nanoTime() - start) / iterations / 1000000
+    }
+
+}